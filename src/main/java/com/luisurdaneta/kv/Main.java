@@ -1,12 +1,28 @@
 package com.luisurdaneta.kv;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luisurdaneta.kv.adapters.peer.CoalescingPeerClient;
+import com.luisurdaneta.kv.adapters.peer.HeartbeatSender;
+import com.luisurdaneta.kv.adapters.peer.MembershipGossiper;
+import com.luisurdaneta.kv.adapters.peer.PeerBreakers;
 import com.luisurdaneta.kv.adapters.peer.PeerClientImpl;
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
+import com.luisurdaneta.kv.adapters.storage.CachingKvStore;
+import com.luisurdaneta.kv.adapters.storage.GroupCommitKvStore;
+import com.luisurdaneta.kv.adapters.storage.RocksDbEngineConfig;
 import com.luisurdaneta.kv.adapters.storage.RocksDbStore;
+import com.luisurdaneta.kv.core.cluster.HybridLogicalClock;
+import com.luisurdaneta.kv.core.cluster.Membership;
+import com.luisurdaneta.kv.core.cluster.PeerLatencies;
+import com.luisurdaneta.kv.core.cluster.PhiAccrualFailureDetector;
 import com.luisurdaneta.kv.core.ports.Clock;
 import com.luisurdaneta.kv.core.ports.KvStore;
 import com.luisurdaneta.kv.core.ports.PeerClient;
 import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.service.AntiEntropyService;
+import com.luisurdaneta.kv.core.service.CoordinatorExecutor;
+import com.luisurdaneta.kv.core.service.HintedHandoffService;
+import com.luisurdaneta.kv.core.service.LargeValueService;
 import com.luisurdaneta.kv.core.service.ReadCoordinatorService;
 import com.luisurdaneta.kv.core.service.ReplicaKvService;
 import com.luisurdaneta.kv.core.service.WriteCoordinatorService;
@@ -31,22 +47,61 @@ public final class Main {
                 config.port()
         );
 
-        ConsistentHashRing ring = new ConsistentHashRing(peers, ConsistentHashRing.DEFAULT_VNODES);
-
-        KvStore store = new RocksDbStore(config.dbPath());
-
-        Clock clock = Clock.system();
-
-        ReplicaKvService replicaService = new ReplicaKvService(store);
-
-        PeerClient peerClient = new PeerClientImpl(HttpJson.MAPPER);
+        // static peers seed the view; nodes beyond them join at runtime through gossip
+        Node self = new Node(config.nodeId(), config.selfBaseUrl());
+        Membership membership = new Membership(self, System.currentTimeMillis(), peers,
+                ConsistentHashRing.DEFAULT_VNODES, 3);
+
+        PhiAccrualFailureDetector failureDetector = new PhiAccrualFailureDetector(
+                config.phiThreshold(), 200, 100, config.heartbeatIntervalMs());
+
+        PeerLatencies peerLatencies = new PeerLatencies(0.2, 128,
+                Duration.ofNanos(config.hedgeMinDelayMicros() * 1_000L), Duration.ofSeconds(5));
+
+        RocksDbEngineConfig engineConfig = RocksDbEngineConfig.of(
+                RocksDbEngineConfig.Profile.parse(config.rocksDbProfile()),
+                config.blockCacheMb() * (1L << 20), config.hyperClockCache());
+        RocksDbStore store = new RocksDbStore(config.dbPath(), engineConfig, config.durability(),
+                Duration.ofNanos(config.groupSyncIntervalMicros() * 1_000L), config.groupSyncBytes());
+        KvStore writePath = config.groupCommitWindowMicros() > 0
+                ? new GroupCommitKvStore(store,
+                        Duration.ofNanos(config.groupCommitWindowMicros() * 1_000L), config.groupCommitMax())
+                : store;
+        CachingKvStore readCache = config.readCacheMb() > 0
+                ? new CachingKvStore(writePath, config.readCacheMb() * (1L << 20))
+                : null;
+        KvStore kvStore = readCache != null ? readCache : writePath;
+
+        Clock clock = config.hybridClock()
+                ? new HybridLogicalClock(Duration.ofMillis(config.clockMaxOffsetMs()))
+                : Clock.system();
+
+        ReplicaKvService replicaService = new ReplicaKvService(kvStore, store, store, clock);
+
+        PeerHttpClient.setMaxInFlightPerPeer(config.peerMaxInFlight());
+        PeerBreakers peerBreakers = config.breakerWindowMs() > 0
+                ? new PeerBreakers(Duration.ofMillis(config.breakerWindowMs()), config.breakerMinCalls(),
+                        config.breakerFailurePercent() / 100.0, Duration.ofMillis(config.breakerSlowCallMs()),
+                        config.breakerSlowCallPercent() / 100.0, Duration.ofMillis(config.breakerOpenMs()))
+                : null;
+        PeerClientImpl directPeerClient = new PeerClientImpl(HttpJson.MAPPER, config.replicaBinaryWire(), peerBreakers);
+        CoalescingPeerClient coalescingPeerClient = config.peerBatchWindowMicros() > 0
+                ? new CoalescingPeerClient(directPeerClient,
+                        Duration.ofNanos(config.peerBatchWindowMicros() * 1_000L), config.peerBatchMax())
+                : null;
+        PeerClient peerClient = coalescingPeerClient != null ? coalescingPeerClient : directPeerClient;
+
+        CoordinatorExecutor coordinatorExecutor = new CoordinatorExecutor(config.coordinatorMaxBackground());
 
         WriteCoordinatorService writeCoordinator = new WriteCoordinatorService(
                 config.nodeId(),
-                ring,
+                membership,
                 replicaService,
                 peerClient,
                 clock,
+                coordinatorExecutor,
+                failureDetector,
+                config.sloppyQuorum(),
                 3,  // REPLICATION FACTOR
                 2,  // W
                 Duration.ofMillis(300),
@@ -55,27 +110,86 @@ public final class Main {
 
         ReadCoordinatorService readCoordinator = new ReadCoordinatorService(
                 config.nodeId(),
-                ring,
+                membership,
                 replicaService,
                 peerClient,
+                clock,
+                coordinatorExecutor,
+                failureDetector,
+                peerLatencies,
+                config.speculativeRetry(),
                 3, // REPLICATION FACTOR
                 2, // R
                 Duration.ofMillis(300),
                 Duration.ofMillis(800)
         );
 
-        NodeContext ctx = new NodeContext(config, peers, ring, replicaService, writeCoordinator, readCoordinator, peerClient);
+        LargeValueService largeValues = new LargeValueService(
+                config.nodeId(),
+                membership,
+                replicaService,
+                store,
+                peerClient,
+                clock,
+                coordinatorExecutor,
+                failureDetector,
+                3, // REPLICATION FACTOR
+                2, // W
+                Duration.ofMillis(config.streamTimeoutMs())
+        );
+
+        AntiEntropyService antiEntropy = new AntiEntropyService(config.nodeId(), kvStore, replicaService, largeValues, peerClient,
+                membership, failureDetector, config.merkleDepth(), Duration.ofMillis(config.antiEntropyIntervalMs()),
+                Duration.ofSeconds(10));
+
+        Admission admission = config.admissionControl()
+                ? new Admission(
+                        adaptiveLimit(config.clientMaxConcurrency(), config.clientLatencyTargetMs()),
+                        adaptiveLimit(config.replicaMaxConcurrency(), config.replicaLatencyTargetMs()))
+                : null;
+
+        NodeContext ctx = new NodeContext(config, membership, failureDetector, peerLatencies, peerBreakers, replicaService, writeCoordinator, readCoordinator, largeValues, peerClient,
+                coordinatorExecutor, antiEntropy, store, readCache, admission);
 
         HttpServer server = HttpServerBootstrap.start(ctx);
 
+        MembershipGossiper gossiper = new MembershipGossiper(membership, config.nodeId(), HttpJson.MAPPER,
+                Duration.ofMillis(config.gossipIntervalMs()), Duration.ofMillis(500));
+        gossiper.start();
+
+        HeartbeatSender heartbeats = new HeartbeatSender(membership, failureDetector, config.nodeId(),
+                Duration.ofMillis(config.heartbeatIntervalMs()), Duration.ofMillis(500));
+        heartbeats.start();
+
+        HintedHandoffService hintReplayer = new HintedHandoffService(config.nodeId(), store, peerClient, membership,
+                failureDetector, clock, Duration.ofMillis(config.hintReplayIntervalMs()), config.hintReplayBatch(),
+                config.hintReplayRate(), Duration.ofMillis(config.hintTtlMs()), Duration.ofSeconds(2));
+        hintReplayer.start();
+
+        if (config.antiEntropyIntervalMs() > 0) antiEntropy.start();
+
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            try { store.close(); } catch (Exception ignored) {}
+            antiEntropy.close();
+            hintReplayer.close();
+            heartbeats.close();
+            gossiper.close();
             try { server.stop(0); } catch (Exception ignored) {}
+            try { coordinatorExecutor.close(); } catch (Exception ignored) {}
+            if (coalescingPeerClient != null) coalescingPeerClient.close();
+            try { kvStore.close(); } catch (Exception ignored) {}
         }));
 
         System.out.println("Listening on :" + config.port()
                 + " nodeId=" + config.nodeId()
                 + " peers=" + peers
-                + " dbPath=" + config.dbPath());
+                + " dbPath=" + config.dbPath()
+                + " rocksdb=" + config.rocksDbProfile()
+                + " httpWorkers=" + config.httpWorkers()
+                + " admission=" + (admission != null));
+    }
+
+    /** Starts at a quarter of the max, never below 16 (or the max, if smaller); cuts by 10%. */
+    private static AdaptiveLimit adaptiveLimit(int max, int targetMs) {
+        return new AdaptiveLimit(max / 4, Math.min(16, max), max, Duration.ofMillis(targetMs), 0.9);
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import com.luisurdaneta.kv.core.model.Payload;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * HttpClient bodies as buffers: requests are published from the callers' buffers as they
+ * are (direct payload views go to the socket without a heap copy), large responses with
+ * a Content-Length are collected into one direct buffer instead of a byte[].
+ */
+final class BufferBodies {
+    private BufferBodies() {}
+
+    static HttpRequest.BodyPublisher publisher(ByteBuffer... parts) {
+        long length = 0;
+        for (ByteBuffer p : parts) length += p.remaining();
+        return length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.fromPublisher(new PartsPublisher(parts), length);
+    }
+
+    static HttpResponse.BodyHandler<ByteBuffer> handler() {
+        return info -> {
+            long length = info.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (length < Payload.OFF_HEAP_MIN_BYTES || length > Integer.MAX_VALUE - 8) {
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), ByteBuffer::wrap);
+            }
+            return HttpResponse.BodySubscribers.fromSubscriber(new Collector((int) length), Collector::body);
+        };
+    }
+
+    /** Emits the parts in order, as fresh views, honouring demand; re-subscribable for retries. */
+    private record PartsPublisher(ByteBuffer[] parts) implements Flow.Publisher<ByteBuffer> {
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int next;
+                private long demand;
+                private boolean emitting;
+                private boolean done;
+
+                @Override
+                public void request(long n) {
+                    if (n <= 0) {
+                        cancel();
+                        subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                        return;
+                    }
+                    synchronized (this) {
+                        demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                        if (emitting) return; // onNext -> request(): the running loop picks it up
+                        emitting = true;
+                    }
+                    while (true) {
+                        ByteBuffer part;
+                        boolean complete = false;
+                        synchronized (this) {
+                            if (done || demand == 0) {
+                                emitting = false;
+                                return;
+                            }
+                            if (next == parts.length) {
+                                done = true;
+                                complete = true;
+                                part = null;
+                            } else {
+                                part = parts[next++].duplicate();
+                                demand--;
+                            }
+                        }
+                        if (complete) {
+                            subscriber.onComplete();
+                            return;
+                        }
+                        subscriber.onNext(part);
+                    }
+                }
+
+                @Override
+                public synchronized void cancel() {
+                    done = true;
+                }
+            });
+        }
+    }
+
+    private static final class Collector implements Flow.Subscriber<List<ByteBuffer>> {
+        private final ByteBuffer buf;
+        private boolean overflow; // HttpClient enforces Content-Length; kept as a guard only
+
+        Collector(int length) {
+            this.buf = ByteBuffer.allocateDirect(length);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            for (ByteBuffer b : items) {
+                if (b.remaining() > buf.remaining()) overflow = true;
+                if (!overflow) buf.put(b);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // surfaced through the response future
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        ByteBuffer body() {
+            if (overflow) throw new IllegalStateException("body longer than its Content-Length");
+            return buf.flip();
+        }
+    }
+}
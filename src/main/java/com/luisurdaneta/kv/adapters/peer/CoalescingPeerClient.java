@@ -0,0 +1,202 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.MerkleTree;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.PeerClient;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing.TokenRange;
+import com.luisurdaneta.kv.http.Node;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * PeerClient that coalesces concurrent replica ops headed for the same peer.
+ *
+ * The first op for a peer opens a window of {@code window}; everything that arrives
+ * for that peer before the window closes (or until {@code maxBatch} ops are queued)
+ * goes out as one /internal/replica/batch request. A window holding a single op
+ * is sent through the plain per-key endpoint. Puts asking for different durability
+ * modes are queued separately, since a batch is applied at a single mode.
+ */
+public final class CoalescingPeerClient implements PeerClient, AutoCloseable {
+    private final PeerClientImpl delegate;
+    private final Duration window;
+    private final int maxBatch;
+
+    private final ConcurrentHashMap<String, PeerQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "peer-batch-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CoalescingPeerClient(PeerClientImpl delegate, Duration window, int maxBatch) {
+        if (maxBatch < 2) throw new IllegalArgumentException("maxBatch must be >= 2");
+        this.delegate = delegate;
+        this.window = window;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public CompletableFuture<ReplicaPutAck> putReplicaAsync(Node peer, String key, VersionedValue vv,
+                                                            Durability durability, Duration timeout) {
+        return enqueue(peer, ReplicaBatchCodec.Op.put(key, vv), durability, timeout)
+                .thenApply(r -> PeerClientImpl.putAck(peer, r));
+    }
+
+    @Override
+    public CompletableFuture<ReplicaGetAck> getReplicaAsync(Node peer, String key, Duration timeout) {
+        return enqueue(peer, ReplicaBatchCodec.Op.get(key), null, timeout)
+                .thenApply(r -> PeerClientImpl.getAck(peer, r));
+    }
+
+    @Override
+    public CompletableFuture<ReplicaDigestAck> getDigestAsync(Node peer, String key, Duration timeout) {
+        return enqueue(peer, ReplicaBatchCodec.Op.digest(key), null, timeout)
+                .thenApply(r -> PeerClientImpl.digestAck(peer, r));
+    }
+
+    // multi-key calls are already batched and hints are rare; send them straight through
+
+    @Override
+    public CompletableFuture<ReplicaPutAck> putHintAsync(Node peer, String key, VersionedValue vv, String ownerId,
+                                                         Duration timeout) {
+        return delegate.putHintAsync(peer, key, vv, ownerId, timeout);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ReplicaPutAck>> putReplicasAsync(
+            Node peer, Map<String, VersionedValue> records, Durability durability, Duration timeout) {
+        return delegate.putReplicasAsync(peer, records, durability, timeout);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ReplicaGetAck>> getReplicasAsync(
+            Node peer, Collection<String> keys, Duration timeout) {
+        return delegate.getReplicasAsync(peer, keys, timeout);
+    }
+
+    @Override
+    public CompletableFuture<ReplicaPutAck> putStreamAsync(Node peer, String key, VersionedValue record,
+                                                           Supplier<InputStream> bytes, Durability durability,
+                                                           Duration timeout) {
+        return delegate.putStreamAsync(peer, key, record, bytes, durability, timeout);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> getStreamAsync(Node peer, String key, VersionedValue version,
+                                                         Duration timeout) {
+        return delegate.getStreamAsync(peer, key, version, timeout);
+    }
+
+    @Override
+    public CompletableFuture<List<MerkleTree>> merkleTreesAsync(Node peer, List<TokenRange> ranges, int depth,
+                                                                Duration timeout) {
+        return delegate.merkleTreesAsync(peer, ranges, depth, timeout);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, VersionedValue>> rangeLeavesAsync(
+            Node peer, Map<TokenRange, ? extends Collection<Integer>> leaves, int depth, Duration timeout) {
+        return delegate.rangeLeavesAsync(peer, leaves, depth, timeout);
+    }
+
+    private CompletableFuture<ReplicaBatchCodec.OpResult> enqueue(Node peer, ReplicaBatchCodec.Op op,
+                                                                  Durability durability, Duration timeout) {
+        Pending p = new Pending(op, timeout, new CompletableFuture<>());
+        String queue = durability == null ? peer.id() : peer.id() + "/" + durability.wireName();
+        queues.computeIfAbsent(queue, id -> new PeerQueue(peer, durability)).add(p);
+        return p.result;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private record Pending(ReplicaBatchCodec.Op op, Duration timeout,
+                           CompletableFuture<ReplicaBatchCodec.OpResult> result) {}
+
+    private final class PeerQueue {
+        private final Node peer;
+        private final Durability durability;
+        private List<Pending> pending = new ArrayList<>();
+
+        PeerQueue(Node peer, Durability durability) {
+            this.peer = peer;
+            this.durability = durability;
+        }
+
+        void add(Pending p) {
+            List<Pending> full = null;
+            boolean schedule;
+            synchronized (this) {
+                pending.add(p);
+                schedule = pending.size() == 1;
+                if (pending.size() >= maxBatch) {
+                    full = drain();
+                    schedule = false;
+                }
+            }
+            if (full != null) {
+                send(full);
+            } else if (schedule) {
+                try {
+                    timer.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    flush();
+                }
+            }
+        }
+
+        void flush() {
+            List<Pending> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                batch = drain();
+            }
+            send(batch);
+        }
+
+        private List<Pending> drain() {
+            List<Pending> out = pending;
+            pending = new ArrayList<>();
+            return out;
+        }
+
+        private void send(List<Pending> batch) {
+            if (batch.size() == 1) {
+                sendSingle(batch.get(0));
+                return;
+            }
+
+            Duration timeout = Duration.ZERO;
+            List<ReplicaBatchCodec.Op> ops = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                ops.add(p.op);
+                if (p.timeout.compareTo(timeout) > 0) timeout = p.timeout;
+            }
+
+            delegate.batchAsync(peer, ops, durability, timeout).whenComplete((results, err) -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (err != null) batch.get(i).result.completeExceptionally(err);
+                    else batch.get(i).result.complete(results.get(i));
+                }
+            });
+        }
+
+        private void sendSingle(Pending p) {
+            delegate.opAsync(peer, p.op, durability, p.timeout).whenComplete((r, err) -> {
+                if (err != null) p.result.completeExceptionally(err);
+                else p.result.complete(r);
+            });
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import com.luisurdaneta.kv.core.cluster.Membership;
+import com.luisurdaneta.kv.core.cluster.PhiAccrualFailureDetector;
+import com.luisurdaneta.kv.http.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pings every ring member's /internal/heartbeat once per {@code interval} and feeds
+ * each successful reply into the failure detector. What we measure is reachability
+ * from this node, which is exactly what our coordinators care about.
+ */
+public final class HeartbeatSender implements AutoCloseable {
+    private final Membership membership;
+    private final PhiAccrualFailureDetector detector;
+    private final String localNodeId;
+    private final Duration interval;
+    private final Duration timeout;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public HeartbeatSender(Membership membership, PhiAccrualFailureDetector detector, String localNodeId,
+                           Duration interval, Duration timeout) {
+        this.membership = membership;
+        this.detector = detector;
+        this.localNodeId = localNodeId;
+        this.interval = interval;
+        this.timeout = timeout;
+    }
+
+    public void start() {
+        timer.scheduleAtFixedRate(this::round, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void round() {
+        byte[] body = localNodeId.getBytes(StandardCharsets.UTF_8);
+        for (Node peer : membership.snapshot().nodes()) {
+            if (peer.id().equals(localNodeId)) continue;
+            PeerHttpClient.postBytes(peer.baseUrl() + "/internal/heartbeat", body, "text/plain", timeout)
+                    .thenAccept(resp -> {
+                        if (resp.statusCode() == 200) detector.heartbeat(peer.id());
+                    });
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,54 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.luisurdaneta.kv.core.cluster.Member;
+import com.luisurdaneta.kv.http.Node;
+
+import java.util.List;
+
+public final class MembershipDto {
+    public final long version;
+    public final List<MemberDto> members;
+
+    @JsonCreator
+    public MembershipDto(
+            @JsonProperty("version") long version,
+            @JsonProperty("members") List<MemberDto> members
+    ) {
+        this.version = version;
+        this.members = members == null ? List.of() : members;
+    }
+
+    public static MembershipDto of(long version, List<Member> view) {
+        return new MembershipDto(version, view.stream()
+                .map(m -> new MemberDto(m.id(), m.node().baseUrl(), m.status().name(), m.incarnation()))
+                .toList());
+    }
+
+    public List<Member> toMembers() {
+        return members.stream()
+                .map(d -> new Member(new Node(d.id, d.baseUrl), Member.Status.valueOf(d.status), d.incarnation))
+                .toList();
+    }
+
+    public static final class MemberDto {
+        public final String id;
+        public final String baseUrl;
+        public final String status;
+        public final long incarnation;
+
+        @JsonCreator
+        public MemberDto(
+                @JsonProperty("id") String id,
+                @JsonProperty("baseUrl") String baseUrl,
+                @JsonProperty("status") String status,
+                @JsonProperty("incarnation") long incarnation
+        ) {
+            this.id = id;
+            this.baseUrl = baseUrl;
+            this.status = status;
+            this.incarnation = incarnation;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luisurdaneta.kv.core.cluster.Member;
+import com.luisurdaneta.kv.core.cluster.Membership;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Push-pull membership gossip. Every {@code interval} this node POSTs its view to
+ * one random other member's /internal/membership and merges the view it gets back.
+ * Views converge in O(log n) rounds; a new node only needs one reachable seed.
+ */
+public final class MembershipGossiper implements AutoCloseable {
+    private final Membership membership;
+    private final String localNodeId;
+    private final ObjectMapper mapper;
+    private final Duration interval;
+    private final Duration timeout;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "membership-gossip");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MembershipGossiper(Membership membership, String localNodeId, ObjectMapper mapper,
+                              Duration interval, Duration timeout) {
+        this.membership = membership;
+        this.localNodeId = localNodeId;
+        this.mapper = mapper;
+        this.interval = interval;
+        this.timeout = timeout;
+    }
+
+    public void start() {
+        timer.scheduleWithFixedDelay(this::round, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void round() {
+        try {
+            // LEFT members still get gossip so they learn about their own leave
+            List<Member> others = membership.view().stream()
+                    .filter(m -> !m.id().equals(localNodeId))
+                    .toList();
+            if (others.isEmpty()) return;
+
+            Member target = others.get(ThreadLocalRandom.current().nextInt(others.size()));
+            exchange(target.node().baseUrl()).get(timeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (Exception ignored) {
+            // unreachable peer; try someone else next round
+        }
+    }
+
+    /** Sends our view to {@code baseUrl} and merges the reply. */
+    public CompletableFuture<Void> exchange(String baseUrl) {
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(MembershipDto.of(membership.snapshot().version(), membership.view()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return PeerHttpClient.postBytes(baseUrl + "/internal/membership", body, ReplicaCodec.JSON, timeout)
+                .thenAccept(resp -> {
+                    if (resp.statusCode() != 200) return;
+                    try {
+                        MembershipDto dto = mapper.readValue(resp.body(), MembershipDto.class);
+                        membership.merge(dto.toMembers());
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
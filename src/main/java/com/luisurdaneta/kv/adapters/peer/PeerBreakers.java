@@ -0,0 +1,214 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A circuit breaker per peer, so a sick one costs a fast non-ack instead of a full
+ * request timeout on every call.
+ *
+ * Closed, a breaker counts calls over a sliding window of {@code window}. Once the
+ * window holds {@code minCalls} calls and either the share that failed or the share
+ * slower than {@code slowCall} reaches its threshold, it opens: calls are refused on the
+ * spot for {@code openFor}. Then it goes half-open and lets {@value #PROBES} calls
+ * through; all of them fine closes it with a fresh window, any of them failed or slow
+ * opens it again.
+ */
+public final class PeerBreakers {
+    private static final int PROBES = 3;
+    private static final int BUCKETS = 10;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final long bucketNanos;
+    private final int minCalls;
+    private final double failureRate;
+    private final long slowCallNanos;
+    private final double slowCallRate;
+    private final long openNanos;
+
+    private final ConcurrentHashMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param failureRate  share of failed calls in the window that opens the breaker, in (0, 1]
+     * @param slowCallRate share of calls slower than {@code slowCall} that opens it, in (0, 1]
+     */
+    public PeerBreakers(Duration window, int minCalls, double failureRate, Duration slowCall, double slowCallRate,
+                        Duration openFor) {
+        if (minCalls <= 0) throw new IllegalArgumentException("minCalls must be > 0");
+        if (failureRate <= 0 || failureRate > 1) throw new IllegalArgumentException("failureRate must be in (0, 1]");
+        if (slowCallRate <= 0 || slowCallRate > 1) throw new IllegalArgumentException("slowCallRate must be in (0, 1]");
+        this.bucketNanos = Math.max(1, window.toNanos() / BUCKETS);
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.slowCallNanos = slowCall.toNanos();
+        this.slowCallRate = slowCallRate;
+        this.openNanos = openFor.toNanos();
+    }
+
+    /**
+     * A permit to call {@code nodeId}, or -1 if its breaker refuses the call. Hand the
+     * permit back with the call's outcome to {@link #onResult}.
+     */
+    long tryAcquire(String nodeId) {
+        return breaker(nodeId).tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Records a call made under {@code permit}; {@code nanos} -1 for a call whose time
+     * says nothing about the peer's health (a streamed body).
+     */
+    void onResult(String nodeId, long permit, long nanos, boolean failed) {
+        breaker(nodeId).onResult(permit, nanos, failed, System.nanoTime());
+    }
+
+    /** Gives back a permit whose call never reached the peer, without counting it. */
+    void release(String nodeId, long permit) {
+        breaker(nodeId).release(permit);
+    }
+
+    public State state(String nodeId) {
+        Breaker b = breakers.get(nodeId);
+        return b == null ? State.CLOSED : b.state(System.nanoTime());
+    }
+
+    /** nodeId -> {state, calls, failed, slow, rejected, opened}, for debugging. */
+    public Map<String, Map<String, Object>> view() {
+        long now = System.nanoTime();
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        breakers.forEach((id, b) -> out.put(id, b.snapshot(now)));
+        return out;
+    }
+
+    private Breaker breaker(String nodeId) {
+        return breakers.computeIfAbsent(nodeId, id -> new Breaker());
+    }
+
+    private final class Breaker {
+        // the window: bucket i counts calls finished in period epoch[i]
+        private final long[] epoch = new long[BUCKETS];
+        private final int[] calls = new int[BUCKETS];
+        private final int[] failed = new int[BUCKETS];
+        private final int[] slow = new int[BUCKETS];
+
+        private State state = State.CLOSED;
+        // bumped on every state change: results of calls let through before it are ignored
+        private long generation;
+        private long openUntil;
+        private int probesSent;
+        private int probesPassed;
+        private long rejected;
+        private long opened;
+
+        Breaker() {
+            Arrays.fill(epoch, Long.MIN_VALUE);
+        }
+
+        synchronized long tryAcquire(long now) {
+            if (state == State.OPEN && now - openUntil >= 0) {
+                transition(State.HALF_OPEN);
+            }
+            switch (state) {
+                case CLOSED -> {
+                    return generation;
+                }
+                case HALF_OPEN -> {
+                    if (probesSent < PROBES) {
+                        probesSent++;
+                        return generation;
+                    }
+                }
+                case OPEN -> { }
+            }
+            rejected++;
+            return -1;
+        }
+
+        synchronized void onResult(long permit, long nanos, boolean isFailure, long now) {
+            if (permit != generation) return;
+            boolean isSlow = nanos > slowCallNanos;
+            switch (state) {
+                case CLOSED -> {
+                    int i = bucket(now);
+                    calls[i]++;
+                    if (isFailure) failed[i]++;
+                    if (isSlow) slow[i]++;
+                    if (shouldOpen(now)) open(now);
+                }
+                case HALF_OPEN -> {
+                    if (isFailure || isSlow) {
+                        open(now);
+                    } else if (++probesPassed >= PROBES) {
+                        transition(State.CLOSED);
+                    }
+                }
+                case OPEN -> { }
+            }
+        }
+
+        synchronized void release(long permit) {
+            if (permit == generation && state == State.HALF_OPEN) probesSent--;
+        }
+
+        synchronized State state(long now) {
+            return state == State.OPEN && now - openUntil >= 0 ? State.HALF_OPEN : state;
+        }
+
+        private int bucket(long now) {
+            long e = now / bucketNanos;
+            int i = (int) Math.floorMod(e, (long) BUCKETS);
+            if (epoch[i] != e) {
+                epoch[i] = e;
+                calls[i] = failed[i] = slow[i] = 0;
+            }
+            return i;
+        }
+
+        private boolean shouldOpen(long now) {
+            int[] w = window(now);
+            return w[0] >= minCalls && (w[1] >= failureRate * w[0] || w[2] >= slowCallRate * w[0]);
+        }
+
+        /** {calls, failed, slow} over the window ending now. */
+        private int[] window(long now) {
+            long oldest = now / bucketNanos - BUCKETS + 1;
+            int[] w = new int[3];
+            for (int i = 0; i < BUCKETS; i++) {
+                if (epoch[i] < oldest) continue;
+                w[0] += calls[i];
+                w[1] += failed[i];
+                w[2] += slow[i];
+            }
+            return w;
+        }
+
+        private void open(long now) {
+            transition(State.OPEN);
+            openUntil = now + openNanos;
+            opened++;
+        }
+
+        private void transition(State next) {
+            state = next;
+            generation++;
+            probesSent = 0;
+            probesPassed = 0;
+            if (next == State.CLOSED) Arrays.fill(epoch, Long.MIN_VALUE);
+        }
+
+        synchronized Map<String, Object> snapshot(long now) {
+            int[] w = window(now);
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("state", state(now).name());
+            out.put("calls", w[0]);
+            out.put("failed", w[1]);
+            out.put("slow", w[2]);
+            out.put("rejected", rejected);
+            out.put("opened", opened);
+            return out;
+        }
+    }
+}
@@ -2,47 +2,370 @@ package com.luisurdaneta.kv.adapters.peer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.luisurdaneta.kv.core.model.ChunkManifest;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.MerkleTree;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
 import com.luisurdaneta.kv.core.ports.PeerClient;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing.TokenRange;
 import com.luisurdaneta.kv.http.Node;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public final class PeerClientImpl implements PeerClient {
+    /** Status of the non-ack a call gets when the peer's circuit breaker is open. */
+    public static final int BREAKER_OPEN = 503;
+
+    /** How long a peer that refused binary frames or batches is sent the fallback before it is probed again. */
+    static final long FALLBACK_NANOS = TimeUnit.MINUTES.toNanos(1);
+
     private final ObjectMapper mapper;
+    private final boolean binaryWire;
+    private final PeerBreakers breakers; // null: no breakers
+    // peer id -> System.nanoTime() until which it gets the fallback; probed again after that
+    private final Map<String, Long> jsonUntil = new ConcurrentHashMap<>(); // peers that turned binary away
+    private final Map<String, Long> unbatchedUntil = new ConcurrentHashMap<>(); // peers that turned batches away
+
+    public PeerClientImpl(ObjectMapper mapper, boolean binaryWire) {
+        this(mapper, binaryWire, null);
+    }
 
-    public PeerClientImpl(ObjectMapper mapper) {
+    /**
+     * @param binaryWire send replica traffic as {@link ReplicaCodec#BINARY} frames; JSON otherwise.
+     *                   Responses are decoded by whatever Content-Type the peer answers with.
+     *                   A peer that refuses a binary put (415, or 400 where the same put in
+     *                   JSON goes through) is sent JSON for {@link #FALLBACK_NANOS}, then
+     *                   binary again, so a peer upgraded in the meantime is picked up.
+     * @param breakers   per-peer circuit breakers; a call to a peer whose breaker is open gets
+     *                   a non-ack (or fails) at once, without a request. Null for none.
+     */
+    public PeerClientImpl(ObjectMapper mapper, boolean binaryWire, PeerBreakers breakers) {
         this.mapper = mapper;
+        this.binaryWire = binaryWire;
+        this.breakers = breakers;
+    }
+
+    @Override
+    public CompletableFuture<ReplicaPutAck> putReplicaAsync(Node peer, String key, VersionedValue vv,
+                                                            Durability durability, Duration timeout) {
+        return put(peer, key, vv, null, durability, timeout, binaryTo(peer));
     }
 
     @Override
-    public ReplicaPutAck putReplica(Node peer, String key, VersionedValue vv, Duration timeout) throws Exception {
+    public CompletableFuture<ReplicaPutAck> putHintAsync(Node peer, String key, VersionedValue vv, String ownerId,
+                                                         Duration timeout) {
+        return put(peer, key, vv, ownerId, null, timeout, binaryTo(peer));
+    }
+
+    private CompletableFuture<ReplicaPutAck> put(Node peer, String key, VersionedValue vv, String hintFor,
+                                                 Durability durability, Duration timeout, boolean binary) {
         String encodedKey = URLEncoder.encode(key, StandardCharsets.UTF_8);
         String url = peer.baseUrl() + "/internal/replica/kv/" + encodedKey;
 
-        // You already have these:
-        // ReplicaCodec.toDto(vv) -> ReplicaRecordDto -> JSON
-        byte[] body = mapper.writeValueAsBytes(ReplicaCodec.toDto(vv));
+        ByteBuffer[] body;
+        if (binary) {
+            body = ReplicaCodec.encodeRecord(vv);
+        } else {
+            // ReplicaCodec.toDto(vv) -> ReplicaRecordDto -> JSON
+            try {
+                body = new ByteBuffer[] { ByteBuffer.wrap(mapper.writeValueAsBytes(ReplicaCodec.toDto(vv))) };
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        String type = binary ? ReplicaCodec.BINARY : ReplicaCodec.JSON;
+        CompletableFuture<ReplicaPutAck> sent = guarded(peer, true,
+                () -> PeerHttpClient.putReplica(url, body, type, hintFor, wireName(durability), timeout),
+                resp -> toPutAck(peer, resp), () -> new ReplicaPutAck(peer.id(), false, false, BREAKER_OPEN));
+        if (!binary) return sent;
 
-        var resp = PeerHttpClient.putReplica(url, body, timeout);
+        // a peer that can't read the frame: once more in JSON, and stay with JSON if that works
+        return sent.thenCompose(ack -> {
+            if (ack.statusCode() != 415 && ack.statusCode() != 400) return CompletableFuture.completedFuture(ack);
+            return put(peer, key, vv, hintFor, durability, timeout, false).thenApply(retried -> {
+                if (retried.statusCode() == 200) fallBack(jsonUntil, peer);
+                return retried;
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<ReplicaGetAck> getReplicaAsync(Node peer, String key, Duration timeout) {
+        String url = peer.baseUrl() + "/internal/replica/kv/" + URLEncoder.encode(key, StandardCharsets.UTF_8);
+
+        return guarded(peer, true, () -> PeerHttpClient.getBuffer(url, contentType(peer), timeout),
+                resp -> toGetAck(peer, resp), () -> new ReplicaGetAck(peer.id(), false, BREAKER_OPEN, null));
+    }
+
+    @Override
+    public CompletableFuture<ReplicaDigestAck> getDigestAsync(Node peer, String key, Duration timeout) {
+        String url = peer.baseUrl() + "/internal/replica/kv/" + URLEncoder.encode(key, StandardCharsets.UTF_8)
+                + "?digest=true";
+
+        return guarded(peer, true, () -> PeerHttpClient.getBuffer(url, contentType(peer), timeout),
+                resp -> toDigestAck(peer, resp), () -> new ReplicaDigestAck(peer.id(), false, BREAKER_OPEN, null));
+    }
+
+    @Override
+    public CompletableFuture<ReplicaPutAck> putStreamAsync(Node peer, String key, VersionedValue record,
+                                                           Supplier<InputStream> bytes, Durability durability,
+                                                           Duration timeout) {
+        String url = peer.baseUrl() + "/internal/replica/stream/" + URLEncoder.encode(key, StandardCharsets.UTF_8);
+        long length = ChunkManifest.of(record).length();
+
+        return guarded(peer, false,
+                () -> PeerHttpClient.putStream(url, bytes, length, record.ts, record.nodeId, contentType(peer),
+                        wireName(durability), timeout),
+                resp -> toPutAck(peer, resp), () -> new ReplicaPutAck(peer.id(), false, false, BREAKER_OPEN));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> getStreamAsync(Node peer, String key, VersionedValue version,
+                                                         Duration timeout) {
+        String url = peer.baseUrl() + "/internal/replica/stream/" + URLEncoder.encode(key, StandardCharsets.UTF_8)
+                + "?ts=" + version.ts + "&nodeId=" + URLEncoder.encode(version.nodeId, StandardCharsets.UTF_8);
+
+        return guarded(peer, false, () -> PeerHttpClient.getStream(url, timeout), resp -> {
+            int code = resp.statusCode();
+            if (code == 200) return resp.body();
+            try {
+                resp.body().close();
+            } catch (IOException ignored) {
+                // the connection is dropped either way
+            }
+            if (code == 404) return null;
+            throw new IllegalStateException("stream: HTTP " + code);
+        }, null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ReplicaPutAck>> putReplicasAsync(
+            Node peer, Map<String, VersionedValue> records, Durability durability, Duration timeout) {
+        List<ReplicaBatchCodec.Op> ops = new ArrayList<>(records.size());
+        records.forEach((k, vv) -> ops.add(ReplicaBatchCodec.Op.put(k, vv)));
+
+        return batchAsync(peer, ops, durability, timeout).thenApply(results -> {
+            Map<String, ReplicaPutAck> out = new LinkedHashMap<>();
+            for (int i = 0; i < ops.size(); i++) out.put(ops.get(i).key(), putAck(peer, results.get(i)));
+            return out;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ReplicaGetAck>> getReplicasAsync(
+            Node peer, Collection<String> keys, Duration timeout) {
+        List<ReplicaBatchCodec.Op> ops = new ArrayList<>(keys.size());
+        for (String k : keys) ops.add(ReplicaBatchCodec.Op.get(k));
+
+        return batchAsync(peer, ops, timeout).thenApply(results -> {
+            Map<String, ReplicaGetAck> out = new LinkedHashMap<>();
+            for (int i = 0; i < ops.size(); i++) out.put(ops.get(i).key(), getAck(peer, results.get(i)));
+            return out;
+        });
+    }
+
+    public CompletableFuture<List<ReplicaBatchCodec.OpResult>> batchAsync(
+            Node peer, List<ReplicaBatchCodec.Op> ops, Duration timeout) {
+        return batchAsync(peer, ops, null, timeout);
+    }
+
+    /**
+     * Sends many replica ops to one peer in a single /internal/replica/batch request;
+     * its puts are applied at {@code durability} (null: the peer's default).
+     * Results come back in request order; a non-200 fails every op.
+     * A peer that is sent JSON, or that refused a batch (400, 404 or 415), gets the ops
+     * one request each instead.
+     */
+    public CompletableFuture<List<ReplicaBatchCodec.OpResult>> batchAsync(
+            Node peer, List<ReplicaBatchCodec.Op> ops, Durability durability, Duration timeout) {
+        if (!binaryTo(peer) || fallingBack(unbatchedUntil, peer)) return unbatched(peer, ops, durability, timeout);
+
+        String url = peer.baseUrl() + "/internal/replica/batch";
+        ByteBuffer[] body = ReplicaBatchCodec.encodeRequest(ops);
+
+        List<ReplicaBatchCodec.OpResult> allFailed = Collections.nCopies(ops.size(), ReplicaBatchCodec.OpResult.failed());
+
+        return guarded(peer, true,
+                () -> PeerHttpClient.postBuffers(url, body, ReplicaCodec.BINARY, wireName(durability), timeout),
+                resp -> {
+                    int code = resp.statusCode();
+                    if (code == 400 || code == 404 || code == 415) return null; // no batch endpoint, or no binary
+                    if (code != 200) return allFailed;
+                    List<ReplicaBatchCodec.OpResult> results = ReplicaBatchCodec.decodeResponse(resp.body());
+                    if (results.size() != ops.size()) {
+                        throw new IllegalStateException("batch response has " + results.size() + " results for " + ops.size() + " ops");
+                    }
+                    return results;
+                }, () -> allFailed)
+                .thenCompose(results -> {
+                    if (results != null) return CompletableFuture.completedFuture(results);
+                    fallBack(unbatchedUntil, peer);
+                    return unbatched(peer, ops, durability, timeout);
+                });
+    }
+
+    private CompletableFuture<List<ReplicaBatchCodec.OpResult>> unbatched(
+            Node peer, List<ReplicaBatchCodec.Op> ops, Durability durability, Duration timeout) {
+        List<CompletableFuture<ReplicaBatchCodec.OpResult>> sent = new ArrayList<>(ops.size());
+        for (ReplicaBatchCodec.Op op : ops) {
+            sent.add(opAsync(peer, op, durability, timeout).exceptionally(e -> ReplicaBatchCodec.OpResult.failed()));
+        }
+        return CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            List<ReplicaBatchCodec.OpResult> out = new ArrayList<>(sent.size());
+            for (CompletableFuture<ReplicaBatchCodec.OpResult> f : sent) out.add(f.join());
+            return out;
+        });
+    }
+
+    /** Sends one replica op on its own request, the way it would go unbatched. */
+    CompletableFuture<ReplicaBatchCodec.OpResult> opAsync(Node peer, ReplicaBatchCodec.Op op,
+                                                          Durability durability, Duration timeout) {
+        if (op.isPut()) {
+            return putReplicaAsync(peer, op.key(), op.putOrNull(), durability, timeout)
+                    .thenApply(a -> new ReplicaBatchCodec.OpResult(a.ok(), a.applied(), null));
+        }
+        if (op.digest()) {
+            return getDigestAsync(peer, op.key(), timeout)
+                    .thenApply(a -> new ReplicaBatchCodec.OpResult(a.ack(), false, null, a.digestOrNull()));
+        }
+        return getReplicaAsync(peer, op.key(), timeout)
+                .thenApply(a -> new ReplicaBatchCodec.OpResult(a.ack(), false, a.recordOrNull()));
+    }
+
+    @Override
+    public CompletableFuture<List<MerkleTree>> merkleTreesAsync(Node peer, List<TokenRange> ranges, int depth,
+                                                                Duration timeout) {
+        List<List<Long>> rs = new ArrayList<>(ranges.size());
+        for (TokenRange r : ranges) rs.add(List.of(r.start(), r.end()));
 
+        return postJson(peer, "/internal/antientropy/trees", Map.of("depth", depth, "ranges", rs), timeout).thenApply(resp -> {
+            if (resp.statusCode() != 200) throw new IllegalStateException("trees: HTTP " + resp.statusCode());
+            // body: the trees' hash arrays back to back, in request order
+            LongBuffer lb = resp.body().asLongBuffer();
+            List<MerkleTree> out = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] hashes = new long[(1 << (depth + 1)) - 1];
+                lb.get(hashes);
+                out.add(MerkleTree.of(depth, hashes));
+            }
+            return out;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, VersionedValue>> rangeLeavesAsync(
+            Node peer, Map<TokenRange, ? extends Collection<Integer>> leaves, int depth, Duration timeout) {
+        List<Map<String, Object>> rs = new ArrayList<>(leaves.size());
+        leaves.forEach((r, ls) -> rs.add(Map.of("start", r.start(), "end", r.end(), "leaves", ls)));
+        Map<String, Object> req = Map.of("depth", depth, "ranges", rs);
+
+        return postJson(peer, "/internal/antientropy/leaves", req, timeout).thenApply(resp -> {
+            if (resp.statusCode() != 200) throw new IllegalStateException("leaves: HTTP " + resp.statusCode());
+            // body: a batch request frame of puts, one per record
+            Map<String, VersionedValue> out = new LinkedHashMap<>();
+            for (ReplicaBatchCodec.Op op : ReplicaBatchCodec.decodeRequest(resp.body())) out.put(op.key(), op.putOrNull());
+            return out;
+        });
+    }
+
+    private CompletableFuture<HttpResponse<ByteBuffer>> postJson(Node peer, String path, Object body, Duration timeout) {
+        ByteBuffer[] json;
+        try {
+            json = new ByteBuffer[] { ByteBuffer.wrap(mapper.writeValueAsBytes(body)) };
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // anti-entropy: a tree or a range of records takes as long as it takes, only errors count
+        return guarded(peer, false, () -> PeerHttpClient.postBuffers(peer.baseUrl() + path, json, ReplicaCodec.JSON,
+                null, timeout), resp -> resp, null);
+    }
+
+    /**
+     * Sends through {@code peer}'s circuit breaker and reads the response with {@code read}.
+     * While the breaker is open nothing is sent: {@code refused} stands in for the result,
+     * or where there is no non-ack to give (null), the call fails. The breaker counts an
+     * exception or a 5xx as a failure and, if {@code timed}, the time from send to response
+     * without any wait for a connection slot here; streamed bodies and anti-entropy are
+     * not timed. A request that never got a slot is not the peer's doing and isn't counted.
+     */
+    private <B, T> CompletableFuture<T> guarded(Node peer, boolean timed,
+                                                Supplier<CompletableFuture<HttpResponse<B>>> send,
+                                                Function<HttpResponse<B>, T> read, Supplier<T> refused) {
+        if (breakers == null) return send.get().thenApply(read);
+
+        long permit = breakers.tryAcquire(peer.id());
+        if (permit < 0) {
+            return refused != null
+                    ? CompletableFuture.completedFuture(refused.get())
+                    : CompletableFuture.failedFuture(new IllegalStateException("circuit open to " + peer.id()));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<B>> f;
+        try {
+            f = send.get();
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        return f.whenComplete((resp, err) -> {
+            Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+            if (cause instanceof PeerPool.NoSlotException) {
+                breakers.release(peer.id(), permit);
+                return;
+            }
+            long nanos = timed && resp != null ? System.nanoTime() - start - PeerHttpClient.queuedNanos(resp) : -1;
+            breakers.onResult(peer.id(), permit, nanos, err != null || resp.statusCode() >= 500);
+        }).thenApply(read);
+    }
+
+    static ReplicaPutAck putAck(Node peer, ReplicaBatchCodec.OpResult r) {
+        return new ReplicaPutAck(peer.id(), r.ok(), r.applied(), r.ok() ? 200 : 503);
+    }
+
+    static ReplicaGetAck getAck(Node peer, ReplicaBatchCodec.OpResult r) {
+        if (!r.ok()) return new ReplicaGetAck(peer.id(), false, 503, null);
+        return new ReplicaGetAck(peer.id(), true, r.recordOrNull() == null ? 404 : 200, r.recordOrNull());
+    }
+
+    static ReplicaDigestAck digestAck(Node peer, ReplicaBatchCodec.OpResult r) {
+        if (!r.ok()) return new ReplicaDigestAck(peer.id(), false, 503, null);
+        return new ReplicaDigestAck(peer.id(), true, r.digestOrNull() == null ? 404 : 200, r.digestOrNull());
+    }
+
+    private ReplicaPutAck toPutAck(Node peer, HttpResponse<byte[]> resp) {
         int code = resp.statusCode();
         if (code != 200) return new ReplicaPutAck(peer.id(), false, false, code);
 
-        JsonNode json = mapper.readTree(resp.body());
+        if (isBinary(resp)) {
+            ReplicaCodec.PutAckFrame ack = ReplicaCodec.decodePutAck(resp.body());
+            return new ReplicaPutAck(peer.id(), ack.ok(), ack.applied(), code);
+        }
+
+        JsonNode json = readTree(resp.body());
         boolean ok = json.path("ok").asBoolean(false);
         boolean applied = json.path("applied").asBoolean(false);
 
         return new ReplicaPutAck(peer.id(), ok, applied, code);
     }
 
-    @Override
-    public ReplicaGetAck getReplica(Node peer, String key, Duration timeout) throws Exception {
-        String url = peer.baseUrl() + "/internal/replica/kv/" + URLEncoder.encode(key, StandardCharsets.UTF_8);
-
-        var resp = PeerHttpClient.getBytes(url, timeout);
+    private ReplicaGetAck toGetAck(Node peer, HttpResponse<ByteBuffer> resp) {
         int code = resp.statusCode();
 
         if (code == 404) {
@@ -53,7 +376,11 @@ public final class PeerClientImpl implements PeerClient {
             return new ReplicaGetAck(peer.id(), false, code, null);
         }
 
-        JsonNode json = mapper.readTree(resp.body());
+        if (isBinary(resp)) {
+            return new ReplicaGetAck(peer.id(), true, 200, ReplicaCodec.decodeRecord(resp.body()));
+        }
+
+        JsonNode json = readTree(resp.body());
         // json: { found:true, key:..., record:{...dto...} }
         JsonNode recordNode = json.get("record");
         if (recordNode == null || recordNode.isNull()) {
@@ -61,9 +388,74 @@ public final class PeerClientImpl implements PeerClient {
             return new ReplicaGetAck(peer.id(), true, 200, null);
         }
 
-        ReplicaRecordDto dto = mapper.treeToValue(recordNode, ReplicaRecordDto.class);
+        ReplicaRecordDto dto;
+        try {
+            dto = mapper.treeToValue(recordNode, ReplicaRecordDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         VersionedValue vv = ReplicaCodec.fromDto(dto);
 
         return new ReplicaGetAck(peer.id(), true, 200, vv);
     }
-}
\ No newline at end of file
+
+    private ReplicaDigestAck toDigestAck(Node peer, HttpResponse<ByteBuffer> resp) {
+        int code = resp.statusCode();
+        if (code == 404) return new ReplicaDigestAck(peer.id(), true, 404, null);
+        if (code != 200) return new ReplicaDigestAck(peer.id(), false, code, null);
+
+        if (isBinary(resp)) {
+            return new ReplicaDigestAck(peer.id(), true, 200, ReplicaCodec.decodeDigest(resp.body()));
+        }
+
+        // json: { found:true, key:..., digest:{ts, nodeId, tombstone, chunked} }
+        JsonNode d = readTree(resp.body()).path("digest");
+        if (d.isMissingNode() || d.isNull()) return new ReplicaDigestAck(peer.id(), true, 200, null);
+        return new ReplicaDigestAck(peer.id(), true, 200, new RecordDigest(d.path("ts").asLong(),
+                d.path("nodeId").asText(), d.path("tombstone").asBoolean(), d.path("chunked").asBoolean()));
+    }
+
+    private static String wireName(Durability durability) {
+        return durability == null ? null : durability.wireName();
+    }
+
+    private boolean binaryTo(Node peer) {
+        return binaryWire && !fallingBack(jsonUntil, peer);
+    }
+
+    private static boolean fallingBack(Map<String, Long> until, Node peer) {
+        Long t = until.get(peer.id());
+        if (t == null) return false;
+        if (System.nanoTime() - t < 0) return true;
+        until.remove(peer.id(), t); // expired: probe again
+        return false;
+    }
+
+    private static void fallBack(Map<String, Long> until, Node peer) {
+        until.put(peer.id(), System.nanoTime() + FALLBACK_NANOS);
+    }
+
+    private String contentType(Node peer) {
+        return binaryTo(peer) ? ReplicaCodec.BINARY : ReplicaCodec.JSON;
+    }
+
+    private static boolean isBinary(HttpResponse<?> resp) {
+        return ReplicaCodec.isBinary(resp.headers().firstValue("Content-Type").orElse(null));
+    }
+
+    private JsonNode readTree(byte[] body) {
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode readTree(ByteBuffer body) {
+        try {
+            return mapper.readTree(new ByteBufferBackedInputStream(body.duplicate()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,33 +1,179 @@
 package com.luisurdaneta.kv.adapters.peer;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import javax.net.ssl.SSLSession;
+
+/**
+ * HTTP transport to peers: one HttpClient, and so one keep-alive connection pool, for
+ * every coordinator, gossiper and replayer on the node.
+ *
+ * Replica traffic to each peer goes through a {@link PeerPool} that caps its requests in
+ * flight (and with them its connections); the rest waits for a slot. Heartbeats and
+ * gossip skip the cap: they are few, and must not queue behind a burst of replica
+ * traffic or the failure detector would mistake a busy link for a dead peer.
+ */
 public final class PeerHttpClient {
     public static final HttpClient CLIENT = HttpClient.newBuilder()
             .connectTimeout(Duration.ofMillis(500))
             .version(HttpClient.Version.HTTP_1_1)
             .build();
 
+    private static final ConcurrentHashMap<String, PeerPool> POOLS = new ConcurrentHashMap<>();
+    private static volatile int maxInFlightPerPeer = 128;
+
+    /** On a replica PUT: store as a hint for this node id instead of applying. */
+    public static final String HINT_FOR_HEADER = "X-KV-Hint-For";
+
+    /** On a replica write or client write: the durability mode, see {@code Durability#wireName}. */
+    public static final String DURABILITY_HEADER = "X-KV-Durability";
+
+    /** On a streamed replica write: the version (ts, nodeId) of the value in the body. */
+    public static final String VERSION_TS_HEADER = "X-KV-Ts";
+    public static final String VERSION_NODE_HEADER = "X-KV-NodeId";
+
     private PeerHttpClient() {}
 
-    public static HttpResponse<byte[]> getBytes(String url, Duration timeout) throws Exception {
+    /** Caps replica requests in flight per peer; set it before any traffic, existing pools keep theirs. */
+    public static void setMaxInFlightPerPeer(int max) {
+        if (max <= 0) throw new IllegalArgumentException("max in flight per peer must be > 0");
+        maxInFlightPerPeer = max;
+    }
+
+    /** peer host:port -> its pool's counters, for debugging. */
+    public static Map<String, Map<String, Object>> poolStats() {
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        POOLS.forEach((peer, pool) -> out.put(peer, pool.stats()));
+        return out;
+    }
+
+    /** The body comes back as one buffer, off-heap when large. */
+    public static CompletableFuture<HttpResponse<ByteBuffer>> getBuffer(String url, String accept, Duration timeout) {
         HttpRequest req = HttpRequest.newBuilder(URI.create(url))
                 .timeout(timeout)
+                .header("Accept", accept)
                 .GET()
                 .build();
-        return CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
+        return send(req, BufferBodies.handler());
+    }
+
+    /** {@code body} parts are sent back to back, as they are (payload views are not copied). */
+    public static CompletableFuture<HttpResponse<byte[]>> putReplica(String url, ByteBuffer[] body, String contentType,
+                                                                     String hintFor, String durability,
+                                                                     Duration timeout) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", contentType)
+                .header("Accept", contentType)
+                .PUT(BufferBodies.publisher(body));
+        if (hintFor != null) req.header(HINT_FOR_HEADER, hintFor);
+        if (durability != null) req.header(DURABILITY_HEADER, durability);
+        return send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
     }
 
-    public static HttpResponse<byte[]> putReplica(String url, byte[] jsonBody, Duration timeout) throws Exception {
+    /**
+     * Streams {@code length} bytes read from {@code body} (opened once per attempt) as a
+     * fixed-length PUT: the client pulls it through its own small buffers as the socket drains.
+     */
+    public static CompletableFuture<HttpResponse<byte[]>> putStream(String url, Supplier<InputStream> body, long length,
+                                                                    long ts, String nodeId, String accept,
+                                                                    String durability, Duration timeout) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", "application/octet-stream")
+                .header("Accept", accept)
+                .header(VERSION_TS_HEADER, Long.toString(ts))
+                .header(VERSION_NODE_HEADER, nodeId)
+                .PUT(HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(body), length));
+        if (durability != null) req.header(DURABILITY_HEADER, durability);
+        return send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * The body is handed over unread, to be consumed (and closed) at the caller's pace. Its
+     * slot is given back with the response headers: a caller that never closes the stream
+     * must not leak the slot.
+     */
+    public static CompletableFuture<HttpResponse<InputStream>> getStream(String url, Duration timeout) {
         HttpRequest req = HttpRequest.newBuilder(URI.create(url))
                 .timeout(timeout)
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofByteArray(jsonBody))
+                .GET()
                 .build();
-        return CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
+        return send(req, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /** Control-plane POST (heartbeats, gossip): not subject to the per-peer cap. */
+    public static CompletableFuture<HttpResponse<byte[]>> postBytes(String url, byte[] body, String contentType,
+                                                                    Duration timeout) {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", contentType)
+                .header("Accept", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return CLIENT.sendAsync(req, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /** Buffer-in, buffer-out POST for frames that may carry large values. */
+    public static CompletableFuture<HttpResponse<ByteBuffer>> postBuffers(String url, ByteBuffer[] body, String contentType,
+                                                                          String durability, Duration timeout) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", contentType)
+                .header("Accept", contentType)
+                .POST(BufferBodies.publisher(body));
+        if (durability != null) req.header(DURABILITY_HEADER, durability);
+        return send(req.build(), BufferBodies.handler());
+    }
+
+    /** Sends through the peer's pool; time spent waiting for a slot counts against the request timeout. */
+    private static <T> CompletableFuture<HttpResponse<T>> send(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+        PeerPool pool = POOLS.computeIfAbsent(req.uri().getAuthority(), peer -> new PeerPool(peer, maxInFlightPerPeer));
+        long timeout = req.timeout().orElse(Duration.ofSeconds(30)).toNanos();
+
+        return pool.acquire(System.nanoTime() + timeout).thenCompose(waited -> {
+            HttpRequest r = waited == 0 ? req : HttpRequest.newBuilder(req, (name, value) -> true)
+                    .timeout(Duration.ofNanos(Math.max(1, timeout - waited)))
+                    .build();
+            CompletableFuture<HttpResponse<T>> f;
+            try {
+                f = CLIENT.sendAsync(r, handler);
+            } catch (RuntimeException e) {
+                pool.release();
+                throw e;
+            }
+            f = f.whenComplete((resp, err) -> pool.release());
+            return waited == 0 ? f : f.thenApply(resp -> new Queued<>(resp, waited));
+        });
+    }
+
+    /** How long the request behind {@code resp} waited in its peer's pool before being sent. */
+    static long queuedNanos(HttpResponse<?> resp) {
+        return resp instanceof Queued<?> q ? q.queuedNanos() : 0;
+    }
+
+    /** A response whose request had to wait {@code queuedNanos} for a slot. */
+    private record Queued<T>(HttpResponse<T> response, long queuedNanos) implements HttpResponse<T> {
+        @Override public int statusCode() { return response.statusCode(); }
+        @Override public HttpRequest request() { return response.request(); }
+        @Override public Optional<HttpResponse<T>> previousResponse() { return response.previousResponse(); }
+        @Override public HttpHeaders headers() { return response.headers(); }
+        @Override public T body() { return response.body(); }
+        @Override public Optional<SSLSession> sslSession() { return response.sslSession(); }
+        @Override public URI uri() { return response.uri(); }
+        @Override public HttpClient.Version version() { return response.version(); }
     }
 }
@@ -0,0 +1,122 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the requests in flight to one peer.
+ *
+ * Over HTTP/1.1 every request in flight holds a connection of its own, so the cap is
+ * also the most connections HttpClient opens to the peer; idle ones stay in its
+ * keep-alive pool for the next caller, whichever coordinator that is. Requests over
+ * the cap wait here in arrival order for a slot instead of opening more connections.
+ * One still waiting when its own timeout has passed fails without being sent.
+ */
+final class PeerPool {
+    private static final CompletableFuture<Long> NO_WAIT = CompletableFuture.completedFuture(0L);
+    private static final ScheduledThreadPoolExecutor EXPIRY = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "peer-pool-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        EXPIRY.setRemoveOnCancelPolicy(true);
+    }
+
+    private final String peer;
+    private final int maxInFlight;
+
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+    private int inFlight;
+    private int peakWaiting;
+    private long requests;
+    private long queued;    // had to wait for a slot: how often the pool is saturated
+    private long expired;   // waited past their timeout and were failed unsent
+
+    PeerPool(String peer, int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be > 0");
+        this.peer = peer;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Completes with the nanos waited once a slot is taken, or fails with an
+     * HttpTimeoutException if none frees up by {@code deadlineNanos}. Every slot
+     * taken must be given back with {@link #release()}.
+     */
+    CompletableFuture<Long> acquire(long deadlineNanos) {
+        Waiter w;
+        synchronized (this) {
+            requests++;
+            if (inFlight < maxInFlight) {
+                inFlight++;
+                return NO_WAIT;
+            }
+            queued++;
+            w = new Waiter(System.nanoTime(), new CompletableFuture<>());
+            waiting.add(w);
+            peakWaiting = Math.max(peakWaiting, waiting.size());
+        }
+        ScheduledFuture<?> expiry = EXPIRY.schedule(() -> expire(w),
+                Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        w.ready.whenComplete((waited, err) -> expiry.cancel(false));
+        return w.ready;
+    }
+
+    /** Fails {@code w} unsent if it is still waiting at its deadline. */
+    private void expire(Waiter w) {
+        boolean failed = w.ready.completeExceptionally(new NoSlotException("no free connection to " + peer
+                + " within the request timeout (" + maxInFlight + " in flight)"));
+        if (!failed) return;
+        synchronized (this) {
+            expired++;
+            waiting.remove(w);
+        }
+    }
+
+    /** Hands the slot to the oldest live waiter, or frees it. */
+    void release() {
+        while (true) {
+            Waiter next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            // done already: expired or cancelled, or expiring right now
+            if (next.ready.complete(System.nanoTime() - next.since)) return;
+        }
+    }
+
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("maxInFlight", maxInFlight);
+        out.put("inFlight", inFlight);
+        out.put("waiting", waiting.size());
+        out.put("peakWaiting", peakWaiting);
+        out.put("requests", requests);
+        out.put("queued", queued);
+        out.put("expired", expired);
+        return out;
+    }
+
+    private record Waiter(long since, CompletableFuture<Long> ready) {}
+
+    /** A request that timed out waiting here, never sent: it says nothing about the peer. */
+    static final class NoSlotException extends HttpTimeoutException {
+        private static final long serialVersionUID = 1L;
+
+        NoSlotException(String message) {
+            super(message);
+        }
+    }
+}
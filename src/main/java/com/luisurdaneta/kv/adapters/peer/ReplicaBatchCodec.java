@@ -0,0 +1,178 @@
+package com.luisurdaneta.kv.adapters.peer;
+
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.model.RecordDigest;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary frames for /internal/replica/batch.
+ *
+ * request:  [version:1][count:4] then per op [kind:1][keyLen:4][keyBytes][record if PUT]
+ * response: [version:1][count:4] then per op, in request order,
+ *           [flags:1][record if HAS_RECORD][digest if HAS_DIGEST]
+ *
+ * Records use the VersionedValue.toBytes() layout, digests the RecordDigest one; both are
+ * self-delimiting.
+ *
+ * Frames are built as a list of buffers: heap chunks for the framing and small records,
+ * large payloads spliced in as views of their own buffers. Decoded records keep their
+ * payloads as views into the frame, so a received frame must not be reused.
+ */
+public final class ReplicaBatchCodec {
+    private ReplicaBatchCodec() {}
+
+    private static final byte KIND_GET = 0;
+    private static final byte KIND_PUT = 1;
+    private static final byte KIND_DIGEST = 2;
+
+    private static final int FLAG_OK = 1;
+    private static final int FLAG_APPLIED = 1 << 1;
+    private static final int FLAG_HAS_RECORD = 1 << 2;
+    private static final int FLAG_HAS_DIGEST = 1 << 3;
+
+    /** One replica operation; {@code putOrNull == null} means GET, or a digest read if {@code digest}. */
+    public record Op(String key, VersionedValue putOrNull, boolean digest) {
+        public static Op get(String key) { return new Op(key, null, false); }
+        public static Op digest(String key) { return new Op(key, null, true); }
+        public static Op put(String key, VersionedValue vv) { return new Op(key, vv, false); }
+        public boolean isPut() { return putOrNull != null; }
+    }
+
+    /**
+     * Outcome of one op. For GETs {@code recordOrNull == null} with ok=true means not found;
+     * likewise {@code digestOrNull} for digest reads.
+     */
+    public record OpResult(boolean ok, boolean applied, VersionedValue recordOrNull, RecordDigest digestOrNull) {
+        public OpResult(boolean ok, boolean applied, VersionedValue recordOrNull) {
+            this(ok, applied, recordOrNull, null);
+        }
+
+        public static OpResult failed() { return new OpResult(false, false, null); }
+    }
+
+    public static ByteBuffer[] encodeRequest(List<Op> ops) {
+        FrameBuilder out = new FrameBuilder();
+        out.put(ReplicaCodec.WIRE_V1).putInt(ops.size());
+        for (Op op : ops) {
+            byte[] k = op.key().getBytes(StandardCharsets.UTF_8);
+            out.put(op.isPut() ? KIND_PUT : op.digest() ? KIND_DIGEST : KIND_GET).putInt(k.length).put(k);
+            if (op.isPut()) out.record(op.putOrNull());
+        }
+        return out.parts();
+    }
+
+    public static List<Op> decodeRequest(ByteBuffer frame) {
+        ByteBuffer bb = frame.duplicate();
+        checkVersion(bb.get());
+        int count = bb.getInt();
+        List<Op> ops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = bb.get();
+            byte[] k = new byte[bb.getInt()];
+            bb.get(k);
+            String key = new String(k, StandardCharsets.UTF_8);
+            switch (kind) {
+                case KIND_GET -> ops.add(Op.get(key));
+                case KIND_DIGEST -> ops.add(Op.digest(key));
+                case KIND_PUT -> ops.add(Op.put(key, VersionedValue.viewFrom(bb)));
+                default -> throw new IllegalArgumentException("unknown batch op kind: " + kind);
+            }
+        }
+        return ops;
+    }
+
+    public static ByteBuffer[] encodeResponse(List<OpResult> results) {
+        FrameBuilder out = new FrameBuilder();
+        out.put(ReplicaCodec.WIRE_V1).putInt(results.size());
+        for (OpResult r : results) {
+            int flags = (r.ok() ? FLAG_OK : 0)
+                    | (r.applied() ? FLAG_APPLIED : 0)
+                    | (r.recordOrNull() != null ? FLAG_HAS_RECORD : 0)
+                    | (r.digestOrNull() != null ? FLAG_HAS_DIGEST : 0);
+            out.put((byte) flags);
+            if (r.recordOrNull() != null) out.record(r.recordOrNull());
+            if (r.digestOrNull() != null) out.digest(r.digestOrNull());
+        }
+        return out.parts();
+    }
+
+    public static List<OpResult> decodeResponse(ByteBuffer frame) {
+        ByteBuffer bb = frame.duplicate();
+        checkVersion(bb.get());
+        int count = bb.getInt();
+        List<OpResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = bb.get();
+            VersionedValue rec = (flags & FLAG_HAS_RECORD) != 0 ? VersionedValue.viewFrom(bb) : null;
+            RecordDigest digest = (flags & FLAG_HAS_DIGEST) != 0 ? RecordDigest.readFrom(bb) : null;
+            results.add(new OpResult((flags & FLAG_OK) != 0, (flags & FLAG_APPLIED) != 0, rec, digest));
+        }
+        return results;
+    }
+
+    /** Heap chunks for the framing; payloads of {@link Payload#OFF_HEAP_MIN_BYTES} or more go in as views. */
+    private static final class FrameBuilder {
+        private static final int CHUNK = 4096;
+
+        private final List<ByteBuffer> parts = new ArrayList<>();
+        private ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+
+        FrameBuilder put(byte b) {
+            room(1).put(b);
+            return this;
+        }
+
+        FrameBuilder putInt(int v) {
+            room(4).putInt(v);
+            return this;
+        }
+
+        FrameBuilder put(byte[] b) {
+            room(b.length).put(b);
+            return this;
+        }
+
+        void record(VersionedValue vv) {
+            ByteBuffer header = vv.header();
+            room(header.remaining()).put(header);
+            if (vv.payload.length() >= Payload.OFF_HEAP_MIN_BYTES) {
+                cut();
+                parts.add(vv.payload.buffer());
+            } else {
+                vv.payload.writeTo(room(vv.payload.length()));
+            }
+        }
+
+        void digest(RecordDigest d) {
+            d.writeTo(room(d.encodedSize()));
+        }
+
+        ByteBuffer[] parts() {
+            cut();
+            return parts.toArray(ByteBuffer[]::new);
+        }
+
+        private ByteBuffer room(int n) {
+            if (chunk.remaining() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(chunk.capacity() * 2, chunk.position() + n));
+                chunk = bigger.put(chunk.flip());
+            }
+            return chunk;
+        }
+
+        private void cut() {
+            if (chunk.position() == 0) return;
+            parts.add(chunk.flip());
+            chunk = ByteBuffer.allocate(CHUNK);
+        }
+    }
+
+    private static void checkVersion(byte v) {
+        if (v != ReplicaCodec.WIRE_V1) throw new IllegalArgumentException("unsupported replica wire version: " + v);
+    }
+}
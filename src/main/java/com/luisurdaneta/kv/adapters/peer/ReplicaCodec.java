@@ -1,24 +1,83 @@
 package com.luisurdaneta.kv.adapters.peer;
 
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
 
+import java.nio.ByteBuffer;
 import java.util.Base64;
 
 public final class ReplicaCodec {
     private static final Base64.Decoder DEC = Base64.getDecoder();
     private static final Base64.Encoder ENC = Base64.getEncoder();
 
+    public static final String JSON = "application/json";
+    public static final String BINARY = "application/octet-stream";
+
+    // binary frames: [version:1][body]
+    //   record body = VersionedValue.toBytes() layout
+    //   put ack body = [ok:1][applied:1]
+    //   digest body = RecordDigest layout
+    public static final byte WIRE_V1 = 1;
+
     public static ReplicaRecordDto toDto(VersionedValue vv) {
         if (vv == null) return null;
-        String b64 = vv.payload == null ? "" : ENC.encodeToString(vv.payload);
-        return new ReplicaRecordDto(vv.ts, vv.nodeId, vv.tombstone, b64);
+        String b64 = vv.payload.length() == 0 ? "" : ENC.encodeToString(vv.payload.toArray());
+        return new ReplicaRecordDto(vv.ts, vv.nodeId, vv.tombstone, vv.chunked, b64);
     }
 
     public static VersionedValue fromDto(ReplicaRecordDto dto) {
         if (dto == null) return null;
-        byte[] payload = (dto.payloadB64 == null || dto.payloadB64.isEmpty())
-                ? new byte[0]
-                : DEC.decode(dto.payloadB64);
-        return new VersionedValue(dto.ts, dto.nodeId, dto.tombstone, payload);
+        Payload payload = (dto.payloadB64 == null || dto.payloadB64.isEmpty())
+                ? Payload.EMPTY
+                : Payload.of(DEC.decode(dto.payloadB64));
+        return new VersionedValue(dto.ts, dto.nodeId, dto.tombstone, dto.chunked, payload);
+    }
+
+    /** A record frame as [version + record header, payload view]: the payload is not copied. */
+    public static ByteBuffer[] encodeRecord(VersionedValue vv) {
+        ByteBuffer header = vv.header();
+        ByteBuffer head = ByteBuffer.allocate(1 + header.remaining()).put(WIRE_V1).put(header).flip();
+        return new ByteBuffer[] { head, vv.payload.buffer() };
+    }
+
+    /** The record's payload is a view into {@code frame}, which must not be reused. */
+    public static VersionedValue decodeRecord(ByteBuffer frame) {
+        ByteBuffer bb = frame.duplicate();
+        checkVersion(bb.get());
+        return VersionedValue.viewFrom(bb);
+    }
+
+    public static ByteBuffer encodeDigest(RecordDigest digest) {
+        ByteBuffer bb = ByteBuffer.allocate(1 + digest.encodedSize()).put(WIRE_V1);
+        digest.writeTo(bb);
+        return bb.flip();
+    }
+
+    public static RecordDigest decodeDigest(ByteBuffer frame) {
+        ByteBuffer bb = frame.duplicate();
+        checkVersion(bb.get());
+        return RecordDigest.readFrom(bb);
+    }
+
+    public static byte[] encodePutAck(boolean ok, boolean applied) {
+        return new byte[] { WIRE_V1, (byte) (ok ? 1 : 0), (byte) (applied ? 1 : 0) };
+    }
+
+    public static PutAckFrame decodePutAck(byte[] frame) {
+        if (frame.length < 3) throw new IllegalArgumentException("short put ack frame: " + frame.length);
+        checkVersion(frame[0]);
+        return new PutAckFrame(frame[1] != 0, frame[2] != 0);
+    }
+
+    /** True if a Content-Type / Accept header asks for the binary replica format. */
+    public static boolean isBinary(String header) {
+        return header != null && header.contains(BINARY);
+    }
+
+    public record PutAckFrame(boolean ok, boolean applied) {}
+
+    private static void checkVersion(byte v) {
+        if (v != WIRE_V1) throw new IllegalArgumentException("unsupported replica wire version: " + v);
     }
-}
\ No newline at end of file
+}
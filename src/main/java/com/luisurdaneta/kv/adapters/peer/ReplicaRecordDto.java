@@ -7,6 +7,7 @@ public final class ReplicaRecordDto {
     public final long ts;
     public final String nodeId;
     public final boolean tombstone;
+    public final boolean chunked;   // payloadB64 is then the chunk manifest; absent from older peers
     public final String payloadB64; // empty when tombstone is true
 
     @JsonCreator
@@ -14,11 +15,13 @@ public final class ReplicaRecordDto {
             @JsonProperty("ts") long ts,
             @JsonProperty("nodeId") String nodeId,
             @JsonProperty("tombstone") boolean tombstone,
+            @JsonProperty("chunked") boolean chunked,
             @JsonProperty("payloadB64") String payloadB64
     ) {
         this.ts = ts;
         this.nodeId = nodeId;
         this.tombstone = tombstone;
+        this.chunked = chunked;
         this.payloadB64 = payloadB64;
     }
 }
@@ -0,0 +1,257 @@
+package com.luisurdaneta.kv.adapters.storage;
+
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.RecordDigest;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.KvStore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Bounded cache of decoded records in front of a KvStore, for hot keys.
+ *
+ * Sharded CLOCK: hits only set a reference bit (no lock, no reordering); inserts
+ * take the shard lock and, over the shard's byte budget, sweep the hand clearing
+ * bits until an unreferenced entry can be evicted. Entries are weighed by their
+ * approximate heap size, so a few large values can't crowd out the budget unnoticed.
+ *
+ * The cache never goes back in time: an entry is only replaced by a newer version,
+ * written-through values are installed after the store accepted them, and a value
+ * read from the store on a miss is dropped if a write to the same key slot landed
+ * while it was being read (it may have been overtaken and already evicted). Likewise
+ * a write that raced another write to its slot drops the key instead of installing.
+ */
+public final class CachingKvStore implements KvStore {
+    private static final int SHARDS = 16;          // power of two
+    private static final int WRITE_SLOTS = 4096;   // power of two
+    private static final int ENTRY_OVERHEAD = 96;  // map node, entry, VersionedValue headers
+
+    private final KvStore delegate;
+    private final Shard[] shards = new Shard[SHARDS];
+    private final AtomicLongArray writeSeq = new AtomicLongArray(WRITE_SLOTS);
+    private final long capacityBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingKvStore(KvStore delegate, long capacityBytes) {
+        this.delegate = delegate;
+        this.capacityBytes = capacityBytes;
+        for (int i = 0; i < SHARDS; i++) shards[i] = new Shard(capacityBytes / SHARDS);
+    }
+
+    @Override
+    public VersionedValue get(String key) throws Exception {
+        Shard shard = shardFor(key);
+        Entry e = shard.map.get(key);
+        if (e != null) {
+            e.referenced = true;
+            hits.increment();
+            return e.value;
+        }
+        misses.increment();
+
+        int slot = writeSlot(key);
+        long seq = writeSeq.get(slot);
+        VersionedValue vv = delegate.get(key);
+        if (vv != null) shard.install(key, vv, slot, seq);
+        return vv;
+    }
+
+    @Override
+    public RecordDigest digest(String key) throws Exception {
+        Entry e = shardFor(key).map.get(key);
+        return e != null ? RecordDigest.of(e.value) : delegate.digest(key);
+    }
+
+    // a cached version was stored, and stored versions only move forward
+    @Override
+    public boolean isStale(String key, VersionedValue candidate) throws Exception {
+        Entry e = shardFor(key).map.get(key);
+        if (e != null && !candidate.isNewerThan(e.value)) return true;
+        return delegate.isStale(key, candidate);
+    }
+
+    @Override
+    public boolean putIfNewer(String key, VersionedValue candidate) throws Exception {
+        return putIfNewer(key, candidate, null);
+    }
+
+    @Override
+    public boolean putIfNewer(String key, VersionedValue candidate, Durability durability) throws Exception {
+        int slot = writeSlot(key);
+        long seq = writeSeq.get(slot);
+        boolean applied = delegate.putIfNewer(key, candidate, durability);
+        if (applied) shardFor(key).written(key, candidate, slot, seq);
+        return applied;
+    }
+
+    @Override
+    public boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates) throws Exception {
+        return putAllIfNewer(keys, candidates, null);
+    }
+
+    @Override
+    public boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates, Durability durability)
+            throws Exception {
+        long[] seqs = new long[keys.size()];
+        for (int i = 0; i < seqs.length; i++) seqs[i] = writeSeq.get(writeSlot(keys.get(i)));
+        boolean[] applied = delegate.putAllIfNewer(keys, candidates, durability);
+        for (int i = 0; i < applied.length; i++) {
+            String key = keys.get(i);
+            if (applied[i]) shardFor(key).written(key, candidates.get(i), writeSlot(key), seqs[i]);
+        }
+        return applied;
+    }
+
+    @Override
+    public void scan(BiConsumer<String, VersionedValue> visitor) throws Exception {
+        delegate.scan(visitor);
+    }
+
+    public Map<String, Object> stats() {
+        long entries = 0;
+        long bytes = 0;
+        for (Shard s : shards) {
+            synchronized (s) {
+                entries += s.ring.size();
+                bytes += s.bytes;
+            }
+        }
+        long h = hits.sum();
+        long m = misses.sum();
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("capacityBytes", capacityBytes);
+        out.put("bytes", bytes);
+        out.put("entries", entries);
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        out.put("evictions", evictions.sum());
+        return out;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private Shard shardFor(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    private static int writeSlot(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (WRITE_SLOTS - 1);
+    }
+
+    private static int weigh(String key, VersionedValue vv) {
+        int payload = vv.payload.length();
+        return ENTRY_OVERHEAD + 2 * key.length() + 2 * vv.nodeId.length() + payload;
+    }
+
+    private static final class Entry {
+        final String key;
+        volatile VersionedValue value;
+        volatile boolean referenced;
+        int weight;
+        int index; // position in the shard's ring
+
+        Entry(String key, VersionedValue value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final class Shard {
+        private final long budget;
+        private final ConcurrentHashMap<String, Entry> map = new ConcurrentHashMap<>();
+        private final List<Entry> ring = new ArrayList<>();
+        private int hand;
+        private long bytes;
+
+        Shard(long budget) {
+            this.budget = budget;
+        }
+
+        /**
+         * A write the store accepted, {@code seq} the slot's write sequence taken before it;
+         * bumps the sequence. If another write to the slot got in since, the two may have
+         * landed in either order and this one may be the older: the key is dropped instead.
+         * Under the shard lock, so a fill can't slip in between a write and its install.
+         */
+        synchronized void written(String key, VersionedValue vv, int slot, long seq) {
+            if (writeSeq.getAndIncrement(slot) != seq) {
+                Entry e = map.get(key);
+                if (e != null) remove(e);
+                return;
+            }
+            install(key, vv, slot, seq + 1);
+        }
+
+        /** A miss fill, skipped if the slot saw a write since {@code readSeq} was taken. */
+        synchronized void install(String key, VersionedValue vv, int slot, long readSeq) {
+            if (writeSeq.get(slot) != readSeq) return;
+
+            int weight = weigh(key, vv);
+            Entry e = map.get(key);
+            if (weight > budget) {
+                // too big to cache (it would evict everything else), but an older copy must not stay
+                if (e != null && vv.isNewerThan(e.value)) remove(e);
+                return;
+            }
+
+            if (e != null) {
+                if (!vv.isNewerThan(e.value)) return;
+                bytes += weight - e.weight;
+                e.weight = weight;
+                e.value = vv;
+                e.referenced = true;
+            } else {
+                e = new Entry(key, vv, weight);
+                e.index = ring.size();
+                ring.add(e);
+                map.put(key, e);
+                bytes += weight;
+            }
+            evictOver(e);
+        }
+
+        /** Sweeps the clock hand until the shard fits its budget; {@code keep} is never evicted. */
+        private void evictOver(Entry keep) {
+            while (bytes > budget && ring.size() > 1) {
+                if (hand >= ring.size()) hand = 0;
+                Entry victim = ring.get(hand);
+                if (victim == keep || victim.referenced) {
+                    victim.referenced = false;
+                    hand++;
+                    continue;
+                }
+                remove(victim);
+                evictions.increment();
+            }
+        }
+
+        private void remove(Entry victim) {
+            // swap-remove: the last entry takes the victim's slot, under the hand
+            Entry last = ring.remove(ring.size() - 1);
+            if (last != victim) {
+                last.index = victim.index;
+                ring.set(victim.index, last);
+            }
+            map.remove(victim.key, victim);
+            bytes -= victim.weight;
+        }
+    }
+}
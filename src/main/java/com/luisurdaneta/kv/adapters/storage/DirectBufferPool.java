@@ -0,0 +1,35 @@
+package com.luisurdaneta.kv.adapters.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Fixed-size direct buffers for RocksDB's ByteBuffer get/put, reused across calls.
+ *
+ * Direct buffers are slow to allocate and only freed by GC, so they are pooled rather
+ * than thread-local (cheap with platform threads, wasteful with many virtual threads).
+ * At most {@code maxPooled} idle buffers are kept; beyond that they are left to GC.
+ */
+final class DirectBufferPool {
+    private final int bufferBytes;
+    private final ArrayBlockingQueue<ByteBuffer> idle;
+
+    DirectBufferPool(int bufferBytes, int maxPooled) {
+        this.bufferBytes = bufferBytes;
+        this.idle = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    int bufferBytes() {
+        return bufferBytes;
+    }
+
+    /** A cleared buffer of {@link #bufferBytes()}; hand it back with {@link #release}. */
+    ByteBuffer acquire() {
+        ByteBuffer bb = idle.poll();
+        return bb != null ? bb.clear() : ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    void release(ByteBuffer bb) {
+        if (bb != null) idle.offer(bb);
+    }
+}
@@ -0,0 +1,192 @@
+package com.luisurdaneta.kv.adapters.storage;
+
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.RecordDigest;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.KvStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * KvStore that group-commits concurrent putIfNewer calls.
+ *
+ * The first write opens a window of {@code window}; every write arriving before it
+ * closes (or until {@code maxBatch} are queued) goes to the delegate as a single
+ * {@link KvStore#putAllIfNewer} call, i.e. one multiGet and one WriteBatch for
+ * RocksDB, and therefore one WAL append/sync. Each durability mode batches in its
+ * own lane, so a group-sync batch waiting for its fsync never holds up an async one.
+ * The flush timer only closes a window: the batch is committed on the thread of one
+ * of its own writers, never on the shared timer. Each caller blocks until its batch
+ * is committed and gets its own applied flag. Reads and scans pass through.
+ * close() waits for the batches already handed out before it closes the delegate.
+ */
+public final class GroupCommitKvStore implements KvStore {
+    private final KvStore delegate;
+    private final Duration window;
+    private final int maxBatch;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "group-commit-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // per durability mode (null = the delegate's default); guarded by this
+    private final Map<Durability, List<Pending>> lanes = new HashMap<>();
+    private int inFlight; // batches out of their lane and not yet committed; guarded by this
+    private volatile boolean closed; // set under this
+
+    public GroupCommitKvStore(KvStore delegate, Duration window, int maxBatch) {
+        if (maxBatch < 2) throw new IllegalArgumentException("maxBatch must be >= 2");
+        this.delegate = delegate;
+        this.window = window;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public VersionedValue get(String key) throws Exception {
+        return delegate.get(key);
+    }
+
+    @Override
+    public boolean isStale(String key, VersionedValue candidate) throws Exception {
+        return delegate.isStale(key, candidate);
+    }
+
+    @Override
+    public RecordDigest digest(String key) throws Exception {
+        return delegate.digest(key);
+    }
+
+    @Override
+    public boolean putIfNewer(String key, VersionedValue candidate) throws Exception {
+        return putIfNewer(key, candidate, null);
+    }
+
+    @Override
+    public boolean putIfNewer(String key, VersionedValue candidate, Durability durability) throws Exception {
+        if (closed) throw new IllegalStateException("store is closed");
+        // versions only move forward: a stale candidate can be turned away without waiting for a batch
+        if (delegate.isStale(key, candidate)) return false;
+
+        Pending p = new Pending(key, candidate, durability, new CompletableFuture<>(), new CompletableFuture<>());
+        add(p);
+        // not interruptible: once handed a batch, this thread owes it a commit
+        CompletableFuture.anyOf(p.applied, p.lead).join();
+        if (p.lead.isDone() && !p.applied.isDone()) commit(p.lead.join());
+        try {
+            return p.applied.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof Exception e) throw e;
+            throw ee;
+        }
+    }
+
+    // already a batch: no point holding it for a window
+    @Override
+    public boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates) throws Exception {
+        return delegate.putAllIfNewer(keys, candidates);
+    }
+
+    @Override
+    public boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates, Durability durability)
+            throws Exception {
+        return delegate.putAllIfNewer(keys, candidates, durability);
+    }
+
+    @Override
+    public void scan(BiConsumer<String, VersionedValue> visitor) throws Exception {
+        delegate.scan(visitor);
+    }
+
+    private void add(Pending p) {
+        List<Pending> full = null;
+        boolean schedule;
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("store is closed");
+            List<Pending> lane = lanes.computeIfAbsent(p.durability, d -> new ArrayList<>());
+            lane.add(p);
+            schedule = lane.size() == 1;
+            if (lane.size() >= maxBatch) {
+                full = lanes.remove(p.durability);
+                inFlight++;
+                schedule = false;
+            }
+        }
+        if (full != null) {
+            commit(full);
+        } else if (schedule) {
+            try {
+                timer.schedule(() -> flush(p.durability), window.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                flush(p.durability);
+            }
+        }
+    }
+
+    /** Closes the lane's window and hands the batch to its first writer to commit. */
+    private void flush(Durability durability) {
+        List<Pending> batch;
+        synchronized (this) {
+            batch = lanes.remove(durability);
+            if (batch != null) inFlight++;
+        }
+        if (batch != null) batch.get(0).lead.complete(batch);
+    }
+
+    private void commit(List<Pending> batch) {
+        Durability durability = batch.get(0).durability;
+        List<String> keys = new ArrayList<>(batch.size());
+        List<VersionedValue> candidates = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            keys.add(p.key);
+            candidates.add(p.candidate);
+        }
+
+        try {
+            boolean[] applied = delegate.putAllIfNewer(keys, candidates, durability);
+            for (int i = 0; i < batch.size(); i++) batch.get(i).applied.complete(applied[i]);
+        } catch (Throwable t) {
+            for (Pending p : batch) p.applied.completeExceptionally(t);
+        } finally {
+            synchronized (this) {
+                if (--inFlight == 0) notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        List<Durability> open;
+        synchronized (this) {
+            closed = true;
+            open = new ArrayList<>(lanes.keySet());
+        }
+        open.forEach(this::flush);
+
+        // the leads still commit to the delegate: closing it under them is a native use-after-close
+        boolean interrupted = false;
+        synchronized (this) {
+            while (inFlight > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        delegate.close();
+    }
+
+    /** {@code lead} completes with the whole batch when this writer is the one to commit it. */
+    private record Pending(String key, VersionedValue candidate, Durability durability,
+                           CompletableFuture<Boolean> applied, CompletableFuture<List<Pending>> lead) {}
+}
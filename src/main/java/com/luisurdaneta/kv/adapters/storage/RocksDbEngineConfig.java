@@ -0,0 +1,135 @@
+package com.luisurdaneta.kv.adapters.storage;
+
+import org.rocksdb.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RocksDB tuning for {@link RocksDbStore}, chosen by profile name plus a block cache cap.
+ *
+ * All column families share one block cache (LRU, or HyperClock for lower contention
+ * under many reader threads), so the cap bounds the store's cached memory. Data and
+ * tombstone families carry whole-key bloom filters, in the memtable too, so a get for
+ * an absent key normally touches no data block.
+ */
+public record RocksDbEngineConfig(
+        Profile profile,
+        long blockCacheBytes,
+        boolean hyperClockCache,
+        double bloomBitsPerKey,
+        long blockSize,
+        long writeBufferBytes,
+        int maxWriteBuffers,
+        CompactionStyle compactionStyle,
+        int backgroundJobs
+) {
+    public enum Profile {
+        /** Reasonable defaults for mixed traffic. */
+        BALANCED,
+        /** Small blocks with a hash index, pinned filters: cheapest possible point get. */
+        POINT_LOOKUP,
+        /** Big memtables, universal compaction, pipelined writes: least write amplification. */
+        WRITE_HEAVY;
+
+        public static Profile parse(String s) {
+            return valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private static final long MB = 1L << 20;
+
+    public static RocksDbEngineConfig of(Profile profile, long blockCacheBytes, boolean hyperClockCache) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return switch (profile) {
+            case BALANCED -> new RocksDbEngineConfig(profile, blockCacheBytes, hyperClockCache,
+                    10, 16 * 1024, 64 * MB, 3, CompactionStyle.LEVEL, Math.max(2, cores / 2));
+            case POINT_LOOKUP -> new RocksDbEngineConfig(profile, blockCacheBytes, hyperClockCache,
+                    12, 4 * 1024, 64 * MB, 3, CompactionStyle.LEVEL, Math.max(2, cores / 2));
+            case WRITE_HEAVY -> new RocksDbEngineConfig(profile, blockCacheBytes, hyperClockCache,
+                    10, 32 * 1024, 128 * MB, 4, CompactionStyle.UNIVERSAL, Math.max(4, cores));
+        };
+    }
+
+    /** Native option objects for one open; {@link #close()} frees all of them. */
+    record Built(DBOptions db, ColumnFamilyOptions data, ColumnFamilyOptions tombstones, ColumnFamilyOptions hints,
+                 ColumnFamilyOptions chunks, Cache blockCache, List<AbstractNativeReference> owned) implements AutoCloseable {
+        @Override
+        public void close() {
+            for (int i = owned.size() - 1; i >= 0; i--) owned.get(i).close();
+        }
+    }
+
+    Built build() {
+        List<AbstractNativeReference> owned = new ArrayList<>();
+
+        Cache cache = hyperClockCache
+                ? new HyperClockCache(blockCacheBytes, 0, -1, false) // 0: estimate entry charge automatically
+                : new LRUCache(blockCacheBytes);
+        owned.add(cache);
+
+        DBOptions db = new DBOptions()
+                .setCreateIfMissing(true)
+                .setCreateMissingColumnFamilies(true)
+                .setMaxBackgroundJobs(backgroundJobs)
+                .setBytesPerSync(MB)
+                .setEnablePipelinedWrite(profile == Profile.WRITE_HEAVY);
+        owned.add(db);
+
+        ColumnFamilyOptions data = familyOptions(cache, owned, bloomBitsPerKey, blockSize)
+                .setWriteBufferSize(writeBufferBytes)
+                .setMaxWriteBufferNumber(maxWriteBuffers)
+                .setMinWriteBufferNumberToMerge(profile == Profile.WRITE_HEAVY ? 2 : 1)
+                .setCompactionStyle(compactionStyle)
+                .setLevelCompactionDynamicLevelBytes(true);
+
+        // tombstones: small, read on every miss in the data family, so filtered too
+        ColumnFamilyOptions tombstones = familyOptions(cache, owned, bloomBitsPerKey, 4 * 1024)
+                .setWriteBufferSize(16 * MB)
+                .setLevelCompactionDynamicLevelBytes(true);
+
+        // hints: only ever scanned by owner prefix, no filter needed
+        ColumnFamilyOptions hints = familyOptions(cache, owned, 0, 16 * 1024)
+                .setWriteBufferSize(16 * MB)
+                .setLevelCompactionDynamicLevelBytes(true);
+
+        // chunks of large values: kept in blob files, so compaction moves small index entries
+        // instead of rewriting the bytes; already-compressed media gains nothing from LZ4
+        ColumnFamilyOptions chunks = familyOptions(cache, owned, 0, 16 * 1024)
+                .setWriteBufferSize(writeBufferBytes)
+                .setLevelCompactionDynamicLevelBytes(true)
+                .setEnableBlobFiles(true)
+                .setMinBlobSize(4 * 1024)
+                .setBlobFileSize(256 * MB)
+                .setEnableBlobGarbageCollection(true);
+
+        return new Built(db, data, tombstones, hints, chunks, cache, owned);
+    }
+
+    private ColumnFamilyOptions familyOptions(Cache cache, List<AbstractNativeReference> owned,
+                                              double bloomBits, long blockSize) {
+        BlockBasedTableConfig table = new BlockBasedTableConfig()
+                .setBlockCache(cache)
+                .setBlockSize(blockSize)
+                .setCacheIndexAndFilterBlocks(true)
+                .setCacheIndexAndFilterBlocksWithHighPriority(true)
+                .setPinL0FilterAndIndexBlocksInCache(true);
+        if (profile == Profile.POINT_LOOKUP) {
+            table.setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash)
+                    .setDataBlockHashTableUtilRatio(0.75);
+        }
+
+        ColumnFamilyOptions cf = new ColumnFamilyOptions()
+                .setCompressionType(CompressionType.LZ4_COMPRESSION)
+                .setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
+        if (bloomBits > 0) {
+            BloomFilter filter = new BloomFilter(bloomBits);
+            owned.add(filter);
+            table.setFilterPolicy(filter).setWholeKeyFiltering(true);
+            cf.setMemtableWholeKeyFiltering(true).setMemtablePrefixBloomSizeRatio(0.02);
+        }
+        owned.add(cf);
+        return cf.setTableFormatConfig(table);
+    }
+}
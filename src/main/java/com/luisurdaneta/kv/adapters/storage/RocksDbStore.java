@@ -1,28 +1,82 @@
 package com.luisurdaneta.kv.adapters.storage;
 
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.Hint;
+import com.luisurdaneta.kv.core.model.RecordDigest;
+import com.luisurdaneta.kv.core.model.RecordView;
 import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.ChunkStore;
+import com.luisurdaneta.kv.core.ports.HintStore;
 import com.luisurdaneta.kv.core.ports.KvStore;
-import org.rocksdb.Options;
-import org.rocksdb.RocksDB;
-import org.rocksdb.RocksDBException;
+import com.luisurdaneta.kv.util.LatencyHistogram;
+import org.rocksdb.*;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
-import org.rocksdb.CompressionType;
-
 import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
-public final class RocksDbStore implements KvStore {
+public final class RocksDbStore implements KvStore, HintStore, ChunkStore {
     static { RocksDB.loadLibrary(); }
 
-    private final Options options;
+    private static final byte[] TOMBSTONES_CF = "tombstones".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HINTS_CF = "hints".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CHUNKS_CF = "chunks".getBytes(StandardCharsets.UTF_8);
+
+    // putIfNewer is read-compare-write; writers of the same key serialize on its stripe
+    private static final int LOCK_STRIPES = 1024; // power of two
+
+    // key and value go through pooled direct buffers (RocksDB ByteBuffer get/put); records
+    // that don't fit take the byte[] path. Version checks read a header-sized prefix only.
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int HEADER_READ_BYTES = 256; // ts, flag, lengths and any sane nodeId
+    private static final int BATCH_HEADER_SLOT = 64;  // per key in a batched version check
+
+    private final RocksDbEngineConfig engineConfig;
+    private final RocksDbEngineConfig.Built engine;
     private final RocksDB db;
+    private final ColumnFamilyHandle dataCf;       // live values
+    private final ColumnFamilyHandle tombstonesCf; // deletes, kept apart so they don't dilute data blocks
+    private final ColumnFamilyHandle hintsCf;
+    private final ColumnFamilyHandle chunksCf;     // bytes of chunked values, by version
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final DirectBufferPool buffers = new DirectBufferPool(BUFFER_BYTES, 64);
+    private final ReadOptions readOptions = new ReadOptions();
+
+    private final Durability defaultDurability;
+    private final EnumMap<Durability, WriteOptions> writeOptions = new EnumMap<>(Durability.class);
+    private final EnumMap<Durability, LatencyHistogram> writeLatency = new EnumMap<>(Durability.class);
+    private final WalGroupSyncer groupSyncer;
 
     public RocksDbStore(String path) throws RocksDBException {
+        this(path, RocksDbEngineConfig.of(RocksDbEngineConfig.Profile.BALANCED, 256L << 20, false),
+                Durability.ASYNC, Duration.ofMillis(1), 1 << 20);
+    }
+
+    /**
+     * @param engineConfig      RocksDB tuning (cache, filters, memtables, compaction)
+     * @param defaultDurability used by writes that don't ask for a mode
+     * @param groupSyncInterval {@link Durability#GROUP_SYNC}: longest a write waits for the shared fsync
+     * @param groupSyncBytes    {@link Durability#GROUP_SYNC}: sync early once this many bytes are waiting
+     */
+    public RocksDbStore(String path, RocksDbEngineConfig engineConfig, Durability defaultDurability,
+                        Duration groupSyncInterval, long groupSyncBytes) throws RocksDBException {
         Path p = Paths.get(path);
 
         try {
@@ -33,41 +87,574 @@ public final class RocksDbStore implements KvStore {
             throw new IllegalStateException("Failed to create DB_PATH directories: " + p, e);
         }
 
-        this.options = new Options()
-                .setCreateIfMissing(true)
-                .setCompressionType(CompressionType.LZ4_COMPRESSION);
+        this.engineConfig = engineConfig;
+        this.engine = engineConfig.build();
+
+        List<ColumnFamilyDescriptor> descriptors = List.of(
+                new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, engine.data()),
+                new ColumnFamilyDescriptor(TOMBSTONES_CF, engine.tombstones()),
+                new ColumnFamilyDescriptor(HINTS_CF, engine.hints()),
+                new ColumnFamilyDescriptor(CHUNKS_CF, engine.chunks())
+        );
+        List<ColumnFamilyHandle> handles = new ArrayList<>(descriptors.size());
 
         try {
-            this.db = RocksDB.open(options, p.toString());
+            this.db = RocksDB.open(engine.db(), p.toString(), descriptors, handles);
         } catch (RocksDBException e) {
-            options.close();
+            engine.close();
             throw e;
         }
+        this.dataCf = handles.get(0);
+        this.tombstonesCf = handles.get(1);
+        this.hintsCf = handles.get(2);
+        this.chunksCf = handles.get(3);
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+
+        this.defaultDurability = defaultDurability;
+        writeOptions.put(Durability.NO_WAL, new WriteOptions().setDisableWAL(true));
+        writeOptions.put(Durability.ASYNC, new WriteOptions());
+        writeOptions.put(Durability.GROUP_SYNC, new WriteOptions()); // synced by groupSyncer
+        writeOptions.put(Durability.SYNC, new WriteOptions().setSync(true));
+        for (Durability d : Durability.values()) writeLatency.put(d, new LatencyHistogram());
+        this.groupSyncer = new WalGroupSyncer(db, groupSyncInterval, groupSyncBytes);
     }
 
     public VersionedValue get(String key) throws RocksDBException {
-        byte[] v = db.get(key.getBytes(StandardCharsets.UTF_8));
-        return VersionedValue.fromBytes(v);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        int size;
+        ByteBuffer buf = buffers.acquire();
+        try {
+            Stored s = read(k, buf, buf.capacity());
+            if (s == null) return null;
+            if (s.record.isComplete()) return s.record.toValue(); // copies out of the pooled buffer
+            size = s.record.encodedSize();
+        } finally {
+            buffers.release(buf);
+        }
+        return readLarge(k, size);
+    }
+
+    /**
+     * A record too big for the pooled buffers, read again into a direct buffer of its own
+     * that the returned value's payload then keeps: no heap copy at all.
+     */
+    private VersionedValue readLarge(byte[] k, int size) throws RocksDBException {
+        ByteBuffer key = ByteBuffer.allocateDirect(k.length).put(k).flip();
+        while (true) {
+            ByteBuffer value = ByteBuffer.allocateDirect(size);
+            int n = db.get(dataCf, readOptions, key.rewind(), value);
+            if (n == RocksDB.NOT_FOUND) n = db.get(tombstonesCf, readOptions, key.rewind(), value);
+            if (n == RocksDB.NOT_FOUND) {
+                // changed family between the two reads
+                Stored s = readHeap(k);
+                return s == null ? null : s.record.toValue();
+            }
+            if (n <= size) return VersionedValue.viewFrom(value);
+            size = n; // overwritten with a bigger value meanwhile
+        }
+    }
+
+    /** Reads the version header only, like {@link #isStale}; the payload is never copied. */
+    @Override
+    public RecordDigest digest(String key) throws RocksDBException {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = buffers.acquire();
+        try {
+            Stored s = read(k, buf, HEADER_READ_BYTES);
+            return s == null ? null : RecordDigest.of(s.record);
+        } finally {
+            buffers.release(buf);
+        }
     }
 
-    public boolean putIfNewer(String key, VersionedValue candidate) throws RocksDBException {
+    /** Compares against the stored version header only; the payload is never copied. */
+    @Override
+    public boolean isStale(String key, VersionedValue candidate) throws RocksDBException {
         byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = buffers.acquire();
+        try {
+            return !candidate.isNewerThan(recordOf(read(k, buf, HEADER_READ_BYTES)));
+        } finally {
+            buffers.release(buf);
+        }
+    }
 
-        byte[] raw = db.get(k);
-        VersionedValue existing = (raw == null) ? null : VersionedValue.fromBytes(raw);
+    /**
+     * Stores {@code candidate} if it wins LWW against the stored version, atomically with
+     * respect to other writers of the same key.
+     *
+     * The stored version only ever moves forward, so a candidate that already loses
+     * without the lock would lose under it too: stale replays and duplicate fan-in
+     * are rejected on the lock-free read. Both checks read the version header only.
+     */
+    public boolean putIfNewer(String key, VersionedValue candidate) throws Exception {
+        return putIfNewer(key, candidate, defaultDurability);
+    }
+
+    @Override
+    public boolean putIfNewer(String key, VersionedValue candidate, Durability durability) throws Exception {
+        if (durability == null) durability = defaultDurability;
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+
+        long start;
+        long bytes;
+        ByteBuffer buf = buffers.acquire();
+        try {
+            if (!candidate.isNewerThan(recordOf(read(k, buf, HEADER_READ_BYTES)))) return false;
+
+            ReentrantLock lock = stripeFor(key);
+            lock.lock();
+            try (WriteBatch batch = new WriteBatch()) {
+                Stored existing = read(k, buf, HEADER_READ_BYTES);
+                if (!candidate.isNewerThan(recordOf(existing))) return false;
+                stage(batch, k, existing, chunkRange(k, existing), candidate, buf);
+                start = System.nanoTime();
+                db.write(writeOptions.get(durability), batch);
+                bytes = batch.getDataSize();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            buffers.release(buf);
+        }
+        // the fsync wait doesn't need the stripe
+        synced(durability, bytes, start);
+        return true;
+    }
+
+    /**
+     * Group commit: one multiGet of version headers, one WriteBatch for the winners.
+     * The stripes of every key are held (in index order, so batches can't deadlock)
+     * for the duration. A key repeated in the batch is applied at most once, for its
+     * newest candidate.
+     */
+    @Override
+    public boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates) throws Exception {
+        return putAllIfNewer(keys, candidates, defaultDurability);
+    }
+
+    @Override
+    public boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates, Durability durability)
+            throws Exception {
+        if (durability == null) durability = defaultDurability;
+        int n = keys.size();
+        boolean[] applied = new boolean[n];
+        if (n == 0) return applied;
+
+        List<byte[]> raw = new ArrayList<>(n);
+        for (String key : keys) raw.add(key.getBytes(StandardCharsets.UTF_8));
+
+        long start = 0;
+        long bytes = 0;
+        ByteBuffer buf = buffers.acquire();
+        int[] held = stripeIndexes(keys);
+        for (int s : held) stripes[s].lock();
+        try {
+            List<Stored> existing = readAll(raw, buf);
+
+            // newest candidate per key wins within the batch, then against the stored version
+            Map<String, Integer> winner = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                Integer w = winner.get(keys.get(i));
+                if (w == null || candidates.get(i).isNewerThan(candidates.get(w))) winner.put(keys.get(i), i);
+            }
+            // all checks before staging: staging encodes into buf, where the headers were read
+            byte[][][] oldChunks = new byte[n][][];
+            for (int i : winner.values()) {
+                applied[i] = candidates.get(i).isNewerThan(recordOf(existing.get(i)));
+                if (applied[i]) oldChunks[i] = chunkRange(raw.get(i), existing.get(i));
+            }
+
+            try (WriteBatch batch = new WriteBatch()) {
+                for (int i = 0; i < n; i++) {
+                    if (applied[i]) stage(batch, raw.get(i), existing.get(i), oldChunks[i], candidates.get(i), buf);
+                }
+                if (batch.count() > 0) {
+                    start = System.nanoTime();
+                    db.write(writeOptions.get(durability), batch);
+                    bytes = batch.getDataSize();
+                }
+            }
+        } finally {
+            for (int i = held.length - 1; i >= 0; i--) stripes[held[i]].unlock();
+            buffers.release(buf);
+        }
+        if (bytes > 0) synced(durability, bytes, start);
+        return applied;
+    }
+
+    /** Completes a write that already reached RocksDB at {@code start}: group fsync if asked, then metrics. */
+    private void synced(Durability durability, long bytes, long start) throws RocksDBException, InterruptedException {
+        if (durability == Durability.GROUP_SYNC) groupSyncer.await(bytes);
+        writeLatency.get(durability).recordNanos(System.nanoTime() - start);
+    }
+
+    /** Write latency (RocksDB write plus any fsync wait) per durability mode. */
+    public Map<String, Object> writeStats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("defaultDurability", defaultDurability.wireName());
+        writeLatency.forEach((d, h) -> out.put(d.wireName(), h.snapshot()));
+        return out;
+    }
+
+    /** Engine profile and shared block cache occupancy. */
+    public Map<String, Object> engineStats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("profile", engineConfig.profile().name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        out.put("blockCache", engineConfig.hyperClockCache() ? "hyperclock" : "lru");
+        out.put("blockCacheCapacity", engineConfig.blockCacheBytes());
+        out.put("blockCacheUsage", engine.blockCache().getUsage());
+        out.put("blockCachePinned", engine.blockCache().getPinnedUsage());
+        return out;
+    }
+
+    /** A stored record (possibly just its header) and the family it lives in. */
+    private record Stored(RecordView record, ColumnFamilyHandle cf) {}
+
+    private static RecordView recordOf(Stored s) {
+        return s == null ? null : s.record;
+    }
+
+    /** Views {@code value} as a stored record; null if it holds less than the header. */
+    private static Stored stored(ByteBuffer value, ColumnFamilyHandle cf) {
+        RecordView view = new RecordView();
+        return view.wrap(value) ? new Stored(view, cf) : null;
+    }
+
+    // live values go to data, tombstones to their own family; the bloom filters make the
+    // miss in data cheap. Data may still hold tombstones written before the split.
+
+    /**
+     * Reads the record under {@code k} through {@code buf}: the key first, then at most
+     * {@code limit} bytes of the value. RocksDB copies a longer value only up to there,
+     * so the view may hold just the header. Keys or headers that don't fit go through byte[].
+     */
+    private Stored read(byte[] k, ByteBuffer buf, int limit) throws RocksDBException {
+        if (k.length + RecordView.FIXED_HEADER_BYTES > buf.capacity()) return readHeap(k);
+        ByteBuffer key = buf.clear().put(k).flip().slice();
+        ByteBuffer value = buf.limit(Math.min(buf.capacity(), k.length + limit)).position(k.length).slice();
+
+        ColumnFamilyHandle cf = dataCf;
+        if (db.get(dataCf, readOptions, key, value) == RocksDB.NOT_FOUND) {
+            cf = tombstonesCf;
+            if (db.get(tombstonesCf, readOptions, key.rewind(), value.clear()) == RocksDB.NOT_FOUND) return null;
+        }
+        Stored s = stored(value, cf);
+        return s != null ? s : readHeap(k);
+    }
+
+    private Stored readHeap(byte[] k) throws RocksDBException {
+        byte[] raw = db.get(dataCf, k);
+        if (raw != null) return stored(ByteBuffer.wrap(raw), dataCf);
+        raw = db.get(tombstonesCf, k);
+        return raw == null ? null : stored(ByteBuffer.wrap(raw), tombstonesCf);
+    }
+
+    /**
+     * Version headers of {@code keys}: one multiGet per family into header-sized slots of
+     * {@code buf}, after the keys. A batch that doesn't fit reads through byte[], and so
+     * does a single header longer than its slot.
+     */
+    private List<Stored> readAll(List<byte[]> keys, ByteBuffer buf) throws RocksDBException {
+        int n = keys.size();
+        int keyBytes = 0;
+        for (byte[] k : keys) keyBytes += k.length;
+        if (keyBytes + (long) n * BATCH_HEADER_SLOT > buf.capacity()) return readAllHeap(keys);
+
+        buf.clear();
+        List<ByteBuffer> keyBufs = new ArrayList<>(n);
+        List<ByteBuffer> slots = new ArrayList<>(n);
+        for (byte[] k : keys) {
+            keyBufs.add(buf.slice(buf.position(), k.length));
+            buf.put(k);
+        }
+        for (int i = 0; i < n; i++) slots.add(buf.slice(keyBytes + i * BATCH_HEADER_SLOT, BATCH_HEADER_SLOT));
 
-        if (candidate.isNewerThan(existing)) {
-            db.put(k, candidate.toBytes());
-            return true;
+        List<Stored> out = new ArrayList<>(Collections.nCopies(n, null));
+        List<Integer> misses = new ArrayList<>();
+        List<ByteBufferGetStatus> data = db.multiGetByteBuffers(readOptions, Collections.nCopies(n, dataCf), keyBufs, slots);
+        for (int i = 0; i < n; i++) {
+            ByteBufferGetStatus st = data.get(i);
+            if (st.status.getCode() == Status.Code.NotFound) misses.add(i);
+            else out.set(i, storedOrHeap(st, keys.get(i), dataCf));
         }
-        return false;
+        if (!misses.isEmpty()) {
+            List<ByteBuffer> missKeys = new ArrayList<>(misses.size());
+            List<ByteBuffer> missSlots = new ArrayList<>(misses.size());
+            for (int i : misses) {
+                missKeys.add(keyBufs.get(i).rewind());
+                missSlots.add(slots.get(i).clear());
+            }
+            List<ByteBufferGetStatus> tombs = db.multiGetByteBuffers(readOptions,
+                    Collections.nCopies(misses.size(), tombstonesCf), missKeys, missSlots);
+            for (int j = 0; j < misses.size(); j++) {
+                ByteBufferGetStatus st = tombs.get(j);
+                if (st.status.getCode() != Status.Code.NotFound) {
+                    out.set(misses.get(j), storedOrHeap(st, keys.get(misses.get(j)), tombstonesCf));
+                }
+            }
+        }
+        return out;
+    }
+
+    private Stored storedOrHeap(ByteBufferGetStatus st, byte[] k, ColumnFamilyHandle cf) throws RocksDBException {
+        if (st.status.getCode() != Status.Code.Ok) throw new RocksDBException(st.status);
+        Stored s = stored(st.value, cf);
+        return s != null ? s : readHeap(k);
+    }
+
+    private List<Stored> readAllHeap(List<byte[]> keys) throws RocksDBException {
+        int n = keys.size();
+        List<byte[]> data = db.multiGetAsList(Collections.nCopies(n, dataCf), keys);
+
+        List<Stored> out = new ArrayList<>(n);
+        List<Integer> misses = new ArrayList<>();
+        List<byte[]> missKeys = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            byte[] raw = data.get(i);
+            out.add(raw == null ? null : stored(ByteBuffer.wrap(raw), dataCf));
+            if (raw == null) {
+                misses.add(i);
+                missKeys.add(keys.get(i));
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<byte[]> tombs = db.multiGetAsList(Collections.nCopies(misses.size(), tombstonesCf), missKeys);
+            for (int j = 0; j < misses.size(); j++) {
+                byte[] raw = tombs.get(j);
+                if (raw != null) out.set(misses.get(j), stored(ByteBuffer.wrap(raw), tombstonesCf));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Puts {@code candidate} in its family and, if the key changes family, drops the old copy in
+     * the same batch, along with {@code oldChunks}: the {@link #chunkRange} of the version it supersedes. Encoded straight into {@code buf} when it fits, else into a direct buffer of
+     * its own (large payloads are often direct already); the batch copies it at once.
+     */
+    private void stage(WriteBatch batch, byte[] k, Stored existing, byte[][] oldChunks, VersionedValue candidate,
+                       ByteBuffer buf) throws RocksDBException {
+        ColumnFamilyHandle to = candidate.tombstone ? tombstonesCf : dataCf;
+        int size = k.length + candidate.encodedSize();
+        ByteBuffer target = size <= buf.capacity() ? buf.clear() : ByteBuffer.allocateDirect(size);
+        ByteBuffer key = target.put(k).flip().slice();
+        ByteBuffer value = target.limit(target.capacity()).position(k.length).slice();
+        candidate.writeTo(value);
+        batch.put(to, key, value.flip());
+        if (existing != null && existing.cf != to) batch.delete(existing.cf, k);
+        if (oldChunks != null) batch.deleteRange(chunksCf, oldChunks[0], oldChunks[1]);
+    }
+
+    /**
+     * The chunk key range of {@code existing} if it is a chunked record, else null. Taken before
+     * staging anything, while the header it is read from is still in the buffer.
+     */
+    private static byte[][] chunkRange(byte[] k, Stored existing) {
+        if (existing == null || !existing.record.chunked()) return null;
+        long ts = existing.record.ts();
+        String nodeId = existing.record.nodeId();
+        return new byte[][]{chunkPrefix(k, ts, nodeId, null), chunkRangeEnd(k, ts, nodeId)};
+    }
+
+    private ReentrantLock stripeFor(String key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private static int stripeIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    /** Distinct stripe indexes of {@code keys}, ascending. */
+    private static int[] stripeIndexes(List<String> keys) {
+        int[] idx = new int[keys.size()];
+        for (int i = 0; i < idx.length; i++) idx[i] = stripeIndex(keys.get(i));
+        return Arrays.stream(idx).sorted().distinct().toArray();
+    }
+
+    /** Merges the data and tombstone families in key order. */
+    @Override
+    public void scan(BiConsumer<String, VersionedValue> visitor) {
+        try (ReadOptions ro = new ReadOptions().setFillCache(false);
+             RocksIterator data = db.newIterator(dataCf, ro);
+             RocksIterator tombs = db.newIterator(tombstonesCf, ro)) {
+            data.seekToFirst();
+            tombs.seekToFirst();
+            while (data.isValid() || tombs.isValid()) {
+                int c = !tombs.isValid() ? -1 : !data.isValid() ? 1 : Arrays.compareUnsigned(data.key(), tombs.key());
+                RocksIterator it = c <= 0 ? data : tombs;
+                VersionedValue vv = VersionedValue.fromBytes(it.value());
+                if (c == 0) {
+                    // not written that way, but if it happens the newer copy is the record
+                    VersionedValue other = VersionedValue.fromBytes(tombs.value());
+                    if (other.isNewerThan(vv)) vv = other;
+                    tombs.next();
+                }
+                visitor.accept(new String(it.key(), StandardCharsets.UTF_8), vv);
+                it.next();
+            }
+        }
+    }
+
+    // ---- chunks ----
+    // key layout: [keyLen:4][key][ts:8][nodeLen:2][node][index:4]; a version's chunks are
+    // contiguous and in order, so dropping them is one range delete.
+    // Written ASYNC: the record that follows them goes through the same WAL, so once it is
+    // synced, so are they.
+
+    @Override
+    public void putChunk(String key, VersionedValue version, int index, byte[] data, int length) throws RocksDBException {
+        byte[] ck = chunkKey(key, version, index);
+        db.put(chunksCf, writeOptions.get(Durability.ASYNC), ck, 0, ck.length, data, 0, length);
+    }
+
+    @Override
+    public ChunkCursor readChunks(String key, VersionedValue version) {
+        byte[] prefix = chunkPrefix(key.getBytes(StandardCharsets.UTF_8), version.ts, version.nodeId, null);
+        // an iterator reads from the implicit snapshot taken when it is created; streamed
+        // chunks are read once, so they don't go through the block cache
+        ReadOptions ro = new ReadOptions().setFillCache(false);
+        RocksIterator it = db.newIterator(chunksCf, ro);
+        it.seek(prefix);
+        return new ChunkCursor() {
+            private int index;
+
+            @Override
+            public byte[] next() throws RocksDBException {
+                if (!it.isValid()) {
+                    it.status();
+                    return null;
+                }
+                byte[] ck = it.key();
+                if (ck.length != prefix.length + 4 || !startsWith(ck, prefix)
+                        || ByteBuffer.wrap(ck, prefix.length, 4).getInt() != index) return null;
+                byte[] chunk = it.value();
+                index++;
+                it.next();
+                return chunk;
+            }
+
+            @Override
+            public void close() {
+                it.close();
+                ro.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean hasChunk(String key, VersionedValue version, int index) {
+        return db.keyExists(chunksCf, readOptions, chunkKey(key, version, index));
+    }
+
+    @Override
+    public void deleteChunks(String key, VersionedValue version) throws RocksDBException {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        db.deleteRange(chunksCf, writeOptions.get(Durability.ASYNC),
+                chunkPrefix(k, version.ts, version.nodeId, null), chunkRangeEnd(k, version.ts, version.nodeId));
+    }
+
+    private static byte[] chunkKey(String key, VersionedValue version, int index) {
+        byte[] prefix = chunkPrefix(key.getBytes(StandardCharsets.UTF_8), version.ts, version.nodeId, null);
+        return ByteBuffer.allocate(prefix.length + 4).put(prefix).putInt(index).array();
+    }
+
+    /** The version's key prefix; with {@code trailer} 0x80 it is the exclusive end of the version's range. */
+    private static byte[] chunkPrefix(byte[] k, long ts, String nodeId, Byte trailer) {
+        byte[] node = nodeId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer bb = ByteBuffer.allocate(4 + k.length + 8 + 2 + node.length + (trailer == null ? 0 : 1));
+        bb.putInt(k.length).put(k).putLong(ts).putShort((short) node.length).put(node);
+        if (trailer != null) bb.put(trailer);
+        return bb.array();
+    }
+
+    private static byte[] chunkRangeEnd(byte[] k, long ts, String nodeId) {
+        // index is a non-negative int, so its first byte is <= 0x7F
+        return chunkPrefix(k, ts, nodeId, (byte) 0x80);
+    }
+
+    // ---- hints ----
+    // key layout: [ownerLen:2][owner][keyLen:4][key][ts:8]; value: VersionedValue.toBytes()
+
+    @Override
+    public void putHint(String ownerId, String key, VersionedValue vv) throws RocksDBException {
+        byte[] owner = ownerId.getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer bb = ByteBuffer.allocate(2 + owner.length + 4 + k.length + 8);
+        bb.putShort((short) owner.length).put(owner).putInt(k.length).put(k).putLong(vv.ts);
+        db.put(hintsCf, bb.array(), vv.toBytes());
+    }
+
+    @Override
+    public List<String> hintOwners() {
+        List<String> owners = new ArrayList<>();
+        try (RocksIterator it = db.newIterator(hintsCf)) {
+            it.seekToFirst();
+            while (it.isValid()) {
+                ByteBuffer bb = ByteBuffer.wrap(it.key());
+                byte[] owner = new byte[bb.getShort()];
+                bb.get(owner);
+                owners.add(new String(owner, StandardCharsets.UTF_8));
+                // keyLen is a non-negative int, so its first byte is <= 0x7F: skip past this owner
+                it.seek(ownerPrefix(owner, (byte) 0x80));
+            }
+        }
+        return owners;
+    }
+
+    @Override
+    public List<Hint> hintsFor(String ownerId, int limit) {
+        byte[] owner = ownerId.getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = ownerPrefix(owner, null);
+
+        List<Hint> out = new ArrayList<>();
+        try (RocksIterator it = db.newIterator(hintsCf)) {
+            for (it.seek(prefix); it.isValid() && out.size() < limit; it.next()) {
+                byte[] hk = it.key();
+                if (!startsWith(hk, prefix)) break;
+                ByteBuffer bb = ByteBuffer.wrap(hk, prefix.length, hk.length - prefix.length);
+                byte[] k = new byte[bb.getInt()];
+                bb.get(k);
+                out.add(new Hint(ownerId, new String(k, StandardCharsets.UTF_8), VersionedValue.fromBytes(it.value()), hk));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void deleteHints(List<Hint> delivered) throws RocksDBException {
+        try (WriteBatch batch = new WriteBatch(); WriteOptions wo = new WriteOptions()) {
+            for (Hint h : delivered) batch.delete(hintsCf, h.handle());
+            db.write(wo, batch);
+        }
+    }
+
+    private static byte[] ownerPrefix(byte[] owner, Byte trailer) {
+        ByteBuffer bb = ByteBuffer.allocate(2 + owner.length + (trailer == null ? 0 : 1));
+        bb.putShort((short) owner.length).put(owner);
+        if (trailer != null) bb.put(trailer);
+        return bb.array();
+    }
+
+    private static boolean startsWith(byte[] a, byte[] prefix) {
+        if (a.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) if (a[i] != prefix[i]) return false;
+        return true;
     }
 
     public RocksDB db() { return db; }
 
     @Override
     public void close() {
+        groupSyncer.close();
+        writeOptions.values().forEach(WriteOptions::close);
+        readOptions.close();
+        chunksCf.close();
+        hintsCf.close();
+        tombstonesCf.close();
+        dataCf.close();
         db.close();
-        options.close();
+        engine.close();
     }
 }
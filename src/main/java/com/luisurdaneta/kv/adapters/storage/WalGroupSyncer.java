@@ -0,0 +1,143 @@
+package com.luisurdaneta.kv.adapters.storage;
+
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Shared WAL fsync for {@code GROUP_SYNC} writes.
+ *
+ * Writers append to the WAL without syncing, then wait here. One background thread
+ * syncs the WAL once {@code interval} has passed since the first unsynced write or
+ * {@code byteBudget} bytes have piled up, whichever comes first, and releases every
+ * writer the sync covered. A failed sync fails exactly those writers: each failure
+ * keeps its own ticket range until every writer in it has been told.
+ */
+final class WalGroupSyncer implements AutoCloseable {
+    private final RocksDB db;
+    private final long intervalNanos;
+    private final long byteBudget;
+    private final Thread thread;
+
+    private long requested;       // tickets handed out
+    private long synced;          // every ticket <= synced is durable (or failed)
+    private final List<FailedSync> failures = new ArrayList<>();
+    private final TreeSet<Long> abandoned = new TreeSet<>(); // unsynced tickets whose writer was interrupted
+    private long pendingBytes;
+    private boolean closed;
+
+    WalGroupSyncer(RocksDB db, Duration interval, long byteBudget) {
+        this.db = db;
+        this.intervalNanos = interval.toNanos();
+        this.byteBudget = byteBudget;
+        this.thread = new Thread(this::run, "wal-group-sync");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Blocks until a WAL sync covering a write of {@code bytes} that already reached the WAL completes. */
+    void await(long bytes) throws RocksDBException, InterruptedException {
+        long ticket;
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("group syncer closed");
+            ticket = ++requested;
+            pendingBytes += bytes;
+            notifyAll();
+            try {
+                while (synced < ticket) wait();
+            } catch (InterruptedException e) {
+                if (synced < ticket) {
+                    abandoned.add(ticket);
+                } else {
+                    collect(ticket);
+                }
+                throw e;
+            }
+            RocksDBException failure = collect(ticket);
+            if (failure != null) throw failure;
+        }
+    }
+
+    /** The failure of the sync that covered {@code ticket}, if it failed; counts the writer as told. */
+    private RocksDBException collect(long ticket) {
+        for (int i = 0; i < failures.size(); i++) {
+            FailedSync f = failures.get(i);
+            if (ticket > f.from && ticket <= f.through) {
+                if (--f.waiting == 0) failures.remove(i);
+                return f.cause;
+            }
+        }
+        return null;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                long target;
+                synchronized (this) {
+                    while (requested == synced && !closed) wait();
+                    if (closed && requested == synced) return;
+
+                    long deadline = System.nanoTime() + intervalNanos;
+                    long left;
+                    while (!closed && pendingBytes < byteBudget && (left = deadline - System.nanoTime()) > 0) {
+                        wait(left / 1_000_000, (int) (left % 1_000_000));
+                    }
+                    target = requested;
+                    pendingBytes = 0;
+                }
+
+                RocksDBException err = null;
+                try {
+                    db.flushWal(true);
+                } catch (RocksDBException e) {
+                    err = e;
+                }
+
+                synchronized (this) {
+                    // writers interrupted before the sync finished will never come to collect it
+                    var gone = abandoned.headSet(target, true);
+                    int waiting = (int) (target - synced) - gone.size();
+                    gone.clear();
+                    if (err != null && waiting > 0) failures.add(new FailedSync(synced, target, err, waiting));
+                    synced = target;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException ignored) {
+            // closing
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Tickets in (from, through] saw {@code cause}; {@code waiting} of their writers have yet to return. */
+    private static final class FailedSync {
+        final long from;
+        final long through;
+        final RocksDBException cause;
+        int waiting;
+
+        FailedSync(long from, long through, RocksDBException cause, int waiting) {
+            this.from = from;
+            this.through = through;
+            this.cause = cause;
+            this.waiting = waiting;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.luisurdaneta.kv.core.cluster;
+
+import com.luisurdaneta.kv.core.model.HybridTime;
+import com.luisurdaneta.kv.core.ports.Clock;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hybrid logical clock (Kulkarni et al.): version stamps that follow the wall clock,
+ * never go backwards, and order after every stamp this node has observed.
+ *
+ * A stamp is max(last + 1, (wall, 0)): a new millisecond restarts the logical counter,
+ * within one (or while the wall clock lags a stamp observed from a node running ahead)
+ * the counter counts up, carrying into the millis if it ever overflows. Stamps more
+ * than {@code maxOffset} ahead of the wall clock here are not followed: one node with a
+ * clock far in the future, or one corrupt stamp, would otherwise drag every clock in
+ * the cluster along with it.
+ */
+public final class HybridLogicalClock implements Clock {
+    private final LongSupplier wallMillis;
+    private final long maxOffsetMillis;
+    private final AtomicLong last = new AtomicLong();
+
+    public HybridLogicalClock(Duration maxOffset) {
+        this(System::currentTimeMillis, maxOffset);
+    }
+
+    public HybridLogicalClock(LongSupplier wallMillis, Duration maxOffset) {
+        this.wallMillis = wallMillis;
+        this.maxOffsetMillis = maxOffset.toMillis();
+    }
+
+    @Override
+    public long nextStamp() {
+        long wall = HybridTime.encode(wallMillis.getAsLong(), 0);
+        return last.updateAndGet(prev -> Math.max(prev + 1, wall));
+    }
+
+    @Override
+    public void observe(long stamp) {
+        long s = HybridTime.normalize(stamp);
+        if (s <= last.get()) return;
+        long limit = HybridTime.encode(wallMillis.getAsLong() + maxOffsetMillis, HybridTime.MAX_LOGICAL);
+        if (s > limit) return;
+        last.accumulateAndGet(s, Math::max);
+    }
+
+    @Override
+    public long nowMillis() {
+        return wallMillis.getAsLong();
+    }
+}
@@ -0,0 +1,33 @@
+package com.luisurdaneta.kv.core.cluster;
+
+import com.luisurdaneta.kv.http.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Local opinion on whether a node is reachable. */
+@FunctionalInterface
+public interface Liveness {
+    Liveness ALWAYS_UP = nodeId -> true;
+
+    boolean isUp(String nodeId);
+
+    /**
+     * The replicas worth contacting: the ones believed up, unless that leaves fewer
+     * than {@code required}, in which case all of them (the detector may be wrong,
+     * and failing the request outright is worse than paying a timeout).
+     */
+    static List<Node> select(List<Node> replicas, Liveness liveness, int required) {
+        int upCount = 0;
+        for (Node n : replicas) {
+            if (liveness.isUp(n.id())) upCount++;
+        }
+        if (upCount == replicas.size() || upCount < required) return replicas;
+
+        List<Node> up = new ArrayList<>(upCount);
+        for (Node n : replicas) {
+            if (liveness.isUp(n.id())) up.add(n);
+        }
+        return up;
+    }
+}
@@ -0,0 +1,21 @@
+package com.luisurdaneta.kv.core.cluster;
+
+import com.luisurdaneta.kv.http.Node;
+
+/**
+ * One entry of the membership view. Higher incarnation wins a merge; on a tie
+ * LEFT wins over JOINED so a leave can't be undone by a stale gossip message.
+ */
+public record Member(Node node, Status status, long incarnation) {
+    public enum Status { JOINED, LEFT }
+
+    public String id() {
+        return node.id();
+    }
+
+    boolean supersedes(Member other) {
+        if (other == null) return true;
+        if (incarnation != other.incarnation) return incarnation > other.incarnation;
+        return status == Status.LEFT && other.status == Status.JOINED;
+    }
+}
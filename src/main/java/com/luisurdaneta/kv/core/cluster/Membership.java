@@ -0,0 +1,102 @@
+package com.luisurdaneta.kv.core.cluster;
+
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.ring.RingProvider;
+import com.luisurdaneta.kv.http.Node;
+
+import java.util.*;
+
+/**
+ * Cluster membership view and the ring built from it.
+ *
+ * The view is a map nodeId -> {@link Member} that converges by merging (see
+ * {@link Member#supersedes}). Every change that alters the set of JOINED nodes
+ * compiles a new immutable {@link ConsistentHashRing} and publishes it with a
+ * single volatile write, so readers always see a complete ring.
+ */
+public final class Membership implements RingProvider {
+    private final String localNodeId;
+    private final int vnodes;
+    private final int rf;
+
+    private final Map<String, Member> members = new HashMap<>();
+    private volatile Snapshot snapshot;
+
+    /** The ring together with the membership version it was built from. */
+    public record Snapshot(long version, ConsistentHashRing ring, List<Node> nodes) {}
+
+    /**
+     * @param seeds  nodes assumed JOINED at incarnation 0 (the static StatefulSet peers)
+     * @param self   this node; joins with {@code selfIncarnation} so a restart
+     *               overrides an earlier leave
+     */
+    public Membership(Node self, long selfIncarnation, List<Node> seeds, int vnodes, int rf) {
+        this.localNodeId = self.id();
+        this.vnodes = vnodes;
+        this.rf = rf;
+
+        for (Node n : seeds) members.put(n.id(), new Member(n, Member.Status.JOINED, 0));
+        members.put(self.id(), new Member(self, Member.Status.JOINED, selfIncarnation));
+
+        this.snapshot = build(0);
+    }
+
+    @Override
+    public ConsistentHashRing current() {
+        return snapshot.ring();
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public synchronized List<Member> view() {
+        return List.copyOf(members.values());
+    }
+
+    /** Merges a remote view into ours. Returns true if the ring changed. */
+    public synchronized boolean merge(Collection<Member> remote) {
+        boolean changed = false;
+        for (Member m : remote) {
+            if (m.id().equals(localNodeId) && m.status() == Member.Status.LEFT
+                    && members.get(localNodeId).status() == Member.Status.JOINED
+                    && m.supersedes(members.get(localNodeId))) {
+                // someone thinks we left but we are running: refute with a newer incarnation
+                Member self = members.get(localNodeId);
+                members.put(localNodeId, new Member(self.node(), Member.Status.JOINED, m.incarnation() + 1));
+                continue;
+            }
+            Member cur = members.get(m.id());
+            if (m.supersedes(cur)) {
+                members.put(m.id(), m);
+                changed |= cur == null || cur.status() != m.status() || !cur.node().equals(m.node());
+            }
+        }
+        if (changed) rebuild();
+        return changed;
+    }
+
+    /** Marks a node as LEFT; it drops out of the ring once the change has spread. */
+    public synchronized boolean leave(String nodeId) {
+        Member cur = members.get(nodeId);
+        if (cur == null || cur.status() == Member.Status.LEFT) return false;
+        members.put(nodeId, new Member(cur.node(), Member.Status.LEFT, cur.incarnation() + 1));
+        rebuild();
+        return true;
+    }
+
+    private void rebuild() {
+        Snapshot next = build(snapshot.version() + 1);
+        if (next != null) snapshot = next;
+    }
+
+    private Snapshot build(long version) {
+        List<Node> live = new ArrayList<>();
+        for (Member m : members.values()) {
+            if (m.status() == Member.Status.JOINED) live.add(m.node());
+        }
+        if (live.isEmpty()) return null; // keep routing with the last ring rather than none
+        live.sort(Comparator.comparing(Node::id));
+        return new Snapshot(version, new ConsistentHashRing(live, vnodes, rf), List.copyOf(live));
+    }
+}
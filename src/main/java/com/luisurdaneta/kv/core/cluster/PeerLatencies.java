@@ -0,0 +1,116 @@
+package com.luisurdaneta.kv.core.cluster;
+
+import com.luisurdaneta.kv.http.Node;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-node response times as seen by this coordinator, one history per node.
+ *
+ * An EWMA of each node's latency ranks replicas for reads; the p95 of its last
+ * {@code window} samples is how long a request to it may take before the coordinator
+ * hedges it. A node whose last sample is older than {@code reprobeAfter} ranks as
+ * unknown again, so a replica that was slow once gets measured anew instead of being
+ * passed over for good. Nodes never measured rank first, in the order given.
+ */
+public final class PeerLatencies {
+    private static final int MIN_SAMPLES_FOR_P95 = 20;
+    private static final int P95_REFRESH_EVERY = 16;
+
+    private final double alpha;
+    private final int window;
+    private final long minHedgeNanos;
+    private final long reprobeNanos;
+
+    private final ConcurrentHashMap<String, History> histories = new ConcurrentHashMap<>();
+
+    public PeerLatencies(double alpha, int window, Duration minHedgeDelay, Duration reprobeAfter) {
+        if (alpha <= 0 || alpha > 1) throw new IllegalArgumentException("alpha must be in (0, 1]");
+        if (window < MIN_SAMPLES_FOR_P95) throw new IllegalArgumentException("window must be >= " + MIN_SAMPLES_FOR_P95);
+        this.alpha = alpha;
+        this.window = window;
+        this.minHedgeNanos = minHedgeDelay.toNanos();
+        this.reprobeNanos = reprobeAfter.toNanos();
+    }
+
+    public void record(String nodeId, long nanos) {
+        histories.computeIfAbsent(nodeId, id -> new History()).add(Math.max(0, nanos), System.nanoTime());
+    }
+
+    /** {@code nodes} fastest first by EWMA; a stable sort, so ties keep their order. */
+    public List<Node> fastestFirst(List<Node> nodes) {
+        long now = System.nanoTime();
+        List<Node> out = new ArrayList<>(nodes);
+        out.sort(Comparator.comparingDouble(n -> rankNanos(n.id(), now)));
+        return out;
+    }
+
+    /**
+     * How long to wait on {@code nodeId} before hedging: its recent p95, at least the
+     * configured minimum. -1 until there are enough samples to tell.
+     */
+    public long hedgeDelayNanos(String nodeId) {
+        History h = histories.get(nodeId);
+        long p95 = h == null ? -1 : h.p95();
+        return p95 < 0 ? -1 : Math.max(p95, minHedgeNanos);
+    }
+
+    /** nodeId -> {ewmaMicros, p95Micros, samples}, for debugging. */
+    public Map<String, Map<String, Object>> view() {
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        histories.forEach((id, h) -> out.put(id, h.snapshot()));
+        return out;
+    }
+
+    private double rankNanos(String nodeId, long now) {
+        History h = histories.get(nodeId);
+        return h == null ? 0 : h.rank(now);
+    }
+
+    private final class History {
+        private final long[] samples = new long[window];
+        private int count;
+        private int next;
+        private double ewma;
+        private long lastAt;
+        private long p95 = -1;
+        private int sinceP95;
+
+        synchronized void add(long nanos, long now) {
+            ewma = count == 0 ? nanos : alpha * nanos + (1 - alpha) * ewma;
+            samples[next] = nanos;
+            next = (next + 1) % window;
+            if (count < window) count++;
+            lastAt = now;
+            if (count >= MIN_SAMPLES_FOR_P95 && (p95 < 0 || ++sinceP95 >= P95_REFRESH_EVERY)) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                p95 = sorted[(int) Math.ceil(0.95 * count) - 1];
+                sinceP95 = 0;
+            }
+        }
+
+        synchronized double rank(long now) {
+            return now - lastAt > reprobeNanos ? 0 : ewma;
+        }
+
+        synchronized long p95() {
+            return p95;
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("ewmaMicros", (long) ewma / 1_000);
+            out.put("p95Micros", p95 < 0 ? -1 : p95 / 1_000);
+            out.put("samples", count);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.luisurdaneta.kv.core.cluster;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phi-accrual failure detector (Hayashibara et al.), one heartbeat history per node.
+ *
+ * phi is the -log10 probability that a heartbeat this late would still arrive,
+ * given the recent inter-arrival distribution. A node is considered down once
+ * phi reaches {@code threshold}. Nodes we never heard from are considered up,
+ * so a cold start doesn't exclude anyone.
+ */
+public final class PhiAccrualFailureDetector implements Liveness {
+    private final double threshold;
+    private final int maxSamples;
+    private final double minStdDevMillis;
+    private final double firstIntervalMillis;
+
+    private final ConcurrentHashMap<String, History> histories = new ConcurrentHashMap<>();
+
+    public PhiAccrualFailureDetector(double threshold, int maxSamples, double minStdDevMillis, double firstIntervalMillis) {
+        this.threshold = threshold;
+        this.maxSamples = maxSamples;
+        this.minStdDevMillis = minStdDevMillis;
+        this.firstIntervalMillis = firstIntervalMillis;
+    }
+
+    public void heartbeat(String nodeId) {
+        histories.computeIfAbsent(nodeId, id -> new History()).arrived(nowMillis());
+    }
+
+    public double phi(String nodeId) {
+        History h = histories.get(nodeId);
+        return h == null ? 0.0 : h.phi(nowMillis());
+    }
+
+    @Override
+    public boolean isUp(String nodeId) {
+        return phi(nodeId) < threshold;
+    }
+
+    /** nodeId -> phi, for debugging. */
+    public Map<String, Double> view() {
+        Map<String, Double> out = new LinkedHashMap<>();
+        histories.forEach((id, h) -> out.put(id, h.phi(nowMillis())));
+        return out;
+    }
+
+    private static double nowMillis() {
+        return System.nanoTime() / 1_000_000.0;
+    }
+
+    private final class History {
+        private final double[] intervals = new double[maxSamples];
+        private int count;
+        private int next;
+        private double sum;
+        private double sumSq;
+        private double last = Double.NaN;
+
+        synchronized void arrived(double now) {
+            if (Double.isNaN(last)) {
+                // bootstrap with a guess so phi is meaningful after one heartbeat
+                double std = firstIntervalMillis / 4;
+                add(firstIntervalMillis - std);
+                add(firstIntervalMillis + std);
+            } else {
+                add(now - last);
+            }
+            last = now;
+        }
+
+        private void add(double interval) {
+            if (count == maxSamples) {
+                double old = intervals[next];
+                sum -= old;
+                sumSq -= old * old;
+            } else {
+                count++;
+            }
+            intervals[next] = interval;
+            next = (next + 1) % maxSamples;
+            sum += interval;
+            sumSq += interval * interval;
+        }
+
+        synchronized double phi(double now) {
+            if (Double.isNaN(last)) return 0.0;
+
+            double mean = sum / count;
+            double variance = Math.max(0, sumSq / count - mean * mean);
+            double std = Math.max(Math.sqrt(variance), minStdDevMillis);
+
+            // logistic approximation of the normal CDF, as used by Akka/Cassandra
+            double y = (now - last - mean) / std;
+            double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+            if (now - last > mean) return -Math.log10(e / (1.0 + e));
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.luisurdaneta.kv.core.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * What the record of a chunked value carries instead of its bytes: the value's length,
+ * split into {@link #CHUNK_BYTES} chunks stored under the record's version.
+ *
+ * The record stays a few dozen bytes whatever the value size, so version checks,
+ * quorum reads, the read cache, batching and anti-entropy hashing treat it like any
+ * other record; only the paths that move the bytes look at the chunks.
+ */
+public record ChunkManifest(long length) {
+    /** Under G1's humongous threshold for any heap region size, so a chunk is ordinary young garbage. */
+    public static final int CHUNK_BYTES = 256 * 1024;
+
+    public ChunkManifest {
+        if (length < 0) throw new IllegalArgumentException("negative length: " + length);
+    }
+
+    public int chunks() {
+        return (int) ((length + CHUNK_BYTES - 1) / CHUNK_BYTES);
+    }
+
+    /** Length of chunk {@code index}: {@link #CHUNK_BYTES} but for the last one. */
+    public int chunkLength(int index) {
+        return (int) Math.min(CHUNK_BYTES, length - (long) index * CHUNK_BYTES);
+    }
+
+    public Payload toPayload() {
+        return Payload.of(ByteBuffer.allocate(8).putLong(length).array());
+    }
+
+    /** The manifest of a chunked record. */
+    public static ChunkManifest of(VersionedValue vv) {
+        if (!vv.chunked) throw new IllegalArgumentException("not a chunked record: " + vv);
+        return fromPayload(vv.payload);
+    }
+
+    public static ChunkManifest fromPayload(Payload payload) {
+        return new ChunkManifest(payload.buffer().getLong(0));
+    }
+}
@@ -0,0 +1,27 @@
+package com.luisurdaneta.kv.core.model;
+
+import java.util.Locale;
+
+/**
+ * How far a write is pushed towards disk before it is acknowledged, weakest first.
+ */
+public enum Durability {
+    /** No WAL: lost on a crash until the memtable is flushed. For cache-like data. */
+    NO_WAL,
+    /** WAL written but not fsynced: survives a process crash, not a machine crash. */
+    ASYNC,
+    /** WAL fsynced, one sync shared by all writes within a time/byte budget. */
+    GROUP_SYNC,
+    /** WAL fsynced before every acknowledgement. */
+    SYNC;
+
+    /** "no-wal", "async", "group-sync", "sync" (case-insensitive, '_' accepted); null stays null. */
+    public static Durability parse(String s) {
+        if (s == null || s.isBlank()) return null;
+        return valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    public String wireName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
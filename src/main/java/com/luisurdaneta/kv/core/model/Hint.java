@@ -0,0 +1,7 @@
+package com.luisurdaneta.kv.core.model;
+
+/**
+ * A write accepted on behalf of {@code ownerId} while it was unreachable.
+ * {@code handle} identifies the stored hint so it can be deleted once delivered.
+ */
+public record Hint(String ownerId, String key, VersionedValue value, byte[] handle) {}
@@ -0,0 +1,59 @@
+package com.luisurdaneta.kv.core.model;
+
+/**
+ * The 64-bit version stamps in {@link VersionedValue#ts}.
+ *
+ * A hybrid logical clock stamp is wall-clock millis in the high 48 bits and a logical
+ * counter in the low {@value #LOGICAL_BITS}: writes in the same millisecond, or after a
+ * stamp from a node whose clock runs ahead, still get distinct, increasing stamps.
+ * Stamps from before hybrid clocks are plain millis. Those are far below any hybrid
+ * stamp since 1970, so they are told apart by size and ordered as (millis, 0): old
+ * records and stamps from nodes still on wall clocks sort where their time puts them.
+ */
+public final class HybridTime {
+    public static final int LOGICAL_BITS = 16;
+    public static final long MAX_LOGICAL = (1L << LOGICAL_BITS) - 1;
+
+    // hybrid stamps of any time after 1970-01-25 are at least this; plain millis stay under it
+    private static final long MIN_HYBRID = 1L << (31 + LOGICAL_BITS);
+
+    private HybridTime() {}
+
+    public static long encode(long millis, long logical) {
+        return (millis << LOGICAL_BITS) | (logical & MAX_LOGICAL);
+    }
+
+    /** Wall-clock millis of {@code ts}, hybrid or plain. */
+    public static long physicalMillis(long ts) {
+        return isHybrid(ts) ? ts >>> LOGICAL_BITS : ts;
+    }
+
+    public static long logical(long ts) {
+        return isHybrid(ts) ? ts & MAX_LOGICAL : 0;
+    }
+
+    public static boolean isHybrid(long ts) {
+        return ts >= MIN_HYBRID;
+    }
+
+    /** {@code ts} as a hybrid stamp: plain millis become (millis, 0). */
+    public static long normalize(long ts) {
+        return isHybrid(ts) || ts < 0 ? ts : ts << LOGICAL_BITS;
+    }
+
+    /** Orders stamps by time, whatever their kind: millis {@code m} and (m, 0) compare equal. */
+    public static int compare(long a, long b) {
+        return a == b ? 0 : Long.compare(normalize(a), normalize(b));
+    }
+
+    /**
+     * The LWW order of versions: by time, then nodeId, then (the same write stamped both
+     * ways) the raw stamp, so any two distinct versions have exactly one newer.
+     */
+    public static boolean isNewer(long ts, String nodeId, long otherTs, String otherNodeId) {
+        int c = compare(ts, otherTs);
+        if (c != 0) return c > 0;
+        c = nodeId.compareTo(otherNodeId);
+        return c != 0 ? c > 0 : ts > otherTs;
+    }
+}
@@ -0,0 +1,102 @@
+package com.luisurdaneta.kv.core.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-depth Merkle tree over the records of one token range.
+ *
+ * Stored as a heap-ordered {@code long[]} of {@code 2^(depth+1) - 1} hashes; the
+ * {@code 2^depth} leaves sit at the end. A record lands in the leaf picked by the top
+ * bits of its (re-mixed) key hash and contributes by XOR, so records can be added
+ * in any order while scanning the store. Only the version (ts, nodeId, tombstone)
+ * is hashed: under LWW two replicas agree iff they hold the same version.
+ */
+public final class MerkleTree {
+    private final int depth;
+    private final long[] nodes;
+    private boolean sealed;
+
+    public MerkleTree(int depth) {
+        if (depth < 0 || depth > 20) throw new IllegalArgumentException("depth must be in [0, 20]");
+        this.depth = depth;
+        this.nodes = new long[(1 << (depth + 1)) - 1];
+    }
+
+    private MerkleTree(int depth, long[] nodes) {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.sealed = true;
+    }
+
+    public static MerkleTree of(int depth, long[] nodes) {
+        if (nodes.length != (1 << (depth + 1)) - 1) {
+            throw new IllegalArgumentException("expected " + ((1 << (depth + 1)) - 1) + " hashes, got " + nodes.length);
+        }
+        return new MerkleTree(depth, nodes);
+    }
+
+    public static int leafOf(long keyHash, int depth) {
+        return depth == 0 ? 0 : (int) (mix(keyHash) >>> (64 - depth));
+    }
+
+    public void add(long keyHash, VersionedValue vv) {
+        if (sealed) throw new IllegalStateException("tree already sealed");
+        long h = mix(keyHash ^ mix(vv.ts) ^ vv.nodeId.hashCode() * 0x9E3779B97F4A7C15L ^ (vv.tombstone ? 1 : 0));
+        nodes[leafBase() + leafOf(keyHash, depth)] ^= h;
+    }
+
+    /** Computes inner hashes; call once after all records were added. */
+    public MerkleTree seal() {
+        if (!sealed) {
+            for (int i = leafBase() - 1; i >= 0; i--) {
+                nodes[i] = mix(nodes[2 * i + 1] * 31 + nodes[2 * i + 2]);
+            }
+            sealed = true;
+        }
+        return this;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long root() {
+        return nodes[0];
+    }
+
+    public long[] hashes() {
+        return nodes;
+    }
+
+    /** Leaf indexes whose hashes differ, found by descending only into differing subtrees. */
+    public List<Integer> diffLeaves(MerkleTree other) {
+        if (other.depth != depth) throw new IllegalArgumentException("depth mismatch");
+        List<Integer> out = new ArrayList<>();
+        diff(other, 0, out);
+        return out;
+    }
+
+    private void diff(MerkleTree other, int i, List<Integer> out) {
+        if (nodes[i] == other.nodes[i]) return;
+        if (i >= leafBase()) {
+            out.add(i - leafBase());
+            return;
+        }
+        diff(other, 2 * i + 1, out);
+        diff(other, 2 * i + 2, out);
+    }
+
+    private int leafBase() {
+        return (1 << depth) - 1;
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
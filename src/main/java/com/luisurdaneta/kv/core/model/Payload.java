@@ -0,0 +1,121 @@
+package com.luisurdaneta.kv.core.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Immutable value bytes, on the heap or off it.
+ *
+ * Values under {@link #OFF_HEAP_MIN_BYTES} are plain heap arrays. Larger ones are read
+ * straight into direct memory (from the client socket, a peer response or RocksDB) and
+ * passed along as buffer views to the next socket or WriteBatch, so a big value never
+ * sits in a heap array on its way through. Direct memory is freed by GC with the last
+ * view: a payload is shared by the replica fan-out and may outlive the request that
+ * brought it (a timed-out peer write still holds it), so there is no release to get wrong.
+ */
+public final class Payload {
+    public static final int OFF_HEAP_MIN_BYTES = 64 * 1024;
+
+    public static final Payload EMPTY = new Payload(ByteBuffer.allocate(0));
+
+    private final ByteBuffer bytes; // position 0, limit = length; never written once wrapped
+
+    private Payload(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    public static Payload of(byte[] bytes) {
+        return bytes == null || bytes.length == 0 ? EMPTY : new Payload(ByteBuffer.wrap(bytes));
+    }
+
+    /** Takes {@code buf}'s remaining bytes without copying; nothing may write to them afterwards. */
+    public static Payload wrap(ByteBuffer buf) {
+        return buf.hasRemaining() ? new Payload(buf.slice()) : EMPTY;
+    }
+
+    /** Copies {@code src}'s remaining bytes (advancing it) to the heap or off it, by size. */
+    public static Payload copyOf(ByteBuffer src) {
+        if (!src.hasRemaining()) return EMPTY;
+        ByteBuffer copy = allocate(src.remaining());
+        copy.put(src).flip();
+        return new Payload(copy);
+    }
+
+    /** A buffer to read a value of {@code length} into: direct from {@link #OFF_HEAP_MIN_BYTES}. */
+    public static ByteBuffer allocate(int length) {
+        return length >= OFF_HEAP_MIN_BYTES ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+    }
+
+    /**
+     * Reads a body of {@code length} bytes ({@code < 0}: unknown, read to EOF). A large known
+     * length goes straight to direct memory through the stream's small transfer buffer.
+     */
+    public static Payload read(InputStream in, long length) throws IOException {
+        if (length < 0) return of(in.readAllBytes());
+        if (length > Integer.MAX_VALUE - 8) throw new IOException("value too large: " + length + " bytes");
+        if (length < OFF_HEAP_MIN_BYTES) {
+            byte[] b = in.readNBytes((int) length);
+            if (b.length < length) throw new EOFException("body ended after " + b.length + " of " + length + " bytes");
+            return of(b);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocateDirect((int) length);
+        ReadableByteChannel ch = Channels.newChannel(in);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) throw new EOFException("body ended after " + buf.position() + " of " + length + " bytes");
+        }
+        return new Payload(buf.flip());
+    }
+
+    public int length() {
+        return bytes.limit();
+    }
+
+    public boolean isDirect() {
+        return bytes.isDirect();
+    }
+
+    /** Read-only view of the bytes, positioned at 0; each call gets its own position. */
+    public ByteBuffer buffer() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /** Copies the bytes to a fresh heap array. */
+    public byte[] toArray() {
+        byte[] out = new byte[length()];
+        bytes.get(0, out);
+        return out;
+    }
+
+    public void writeTo(ByteBuffer dst) {
+        dst.put(bytes.duplicate());
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (bytes.hasArray()) {
+            out.write(bytes.array(), bytes.arrayOffset(), length());
+        } else {
+            Channels.newChannel(out).write(buffer());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Payload p && bytes.equals(p.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return bytes.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Payload{length=" + length() + (isDirect() ? ", direct" : "") + '}';
+    }
+}
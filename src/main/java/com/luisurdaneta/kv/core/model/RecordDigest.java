@@ -0,0 +1,66 @@
+package com.luisurdaneta.kv.core.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A record's version without its payload: what a replica answers a digest read with
+ * instead of the record, a few dozen bytes whatever the value size.
+ *
+ * LWW needs the version only, so that is all a digest carries. Two copies of the same
+ * version are never told apart (a write can't replace its own version), so a payload
+ * hash would cost a full read on every digest for nothing.
+ */
+public record RecordDigest(long ts, String nodeId, boolean tombstone, boolean chunked) {
+
+    public static RecordDigest of(VersionedValue vv) {
+        if (vv == null) return null;
+        return new RecordDigest(vv.ts, vv.nodeId, vv.tombstone, vv.chunked);
+    }
+
+    /** Digest of a stored record read in place; the header is enough. */
+    public static RecordDigest of(RecordView view) {
+        return new RecordDigest(view.ts(), view.nodeId(), view.tombstone(), view.chunked());
+    }
+
+    /** Same order as {@link VersionedValue#isNewerThan(VersionedValue)}. */
+    public boolean isNewerThan(RecordDigest other) {
+        if (other == null) return true;
+        return HybridTime.isNewer(ts, nodeId, other.ts, other.nodeId);
+    }
+
+    public boolean isNewerThan(VersionedValue other) {
+        if (other == null) return true;
+        return HybridTime.isNewer(ts, nodeId, other.ts, other.nodeId);
+    }
+
+    public boolean isSameVersion(RecordDigest other) {
+        return other != null && ts == other.ts && nodeId.equals(other.nodeId);
+    }
+
+    public boolean isSameVersion(VersionedValue other) {
+        return other != null && ts == other.ts && nodeId.equals(other.nodeId);
+    }
+
+    // [ts:8][flags:1][nodeLen:4][nodeBytes]; flags as in VersionedValue
+
+    public int encodedSize() {
+        return 8 + 1 + 4 + nodeId.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public void writeTo(ByteBuffer bb) {
+        byte[] node = nodeId.getBytes(StandardCharsets.UTF_8);
+        bb.putLong(ts);
+        bb.put((byte) ((tombstone ? VersionedValue.FLAG_TOMBSTONE : 0) | (chunked ? VersionedValue.FLAG_CHUNKED : 0)));
+        bb.putInt(node.length).put(node);
+    }
+
+    public static RecordDigest readFrom(ByteBuffer bb) {
+        long ts = bb.getLong();
+        byte flags = bb.get();
+        byte[] node = new byte[bb.getInt()];
+        bb.get(node);
+        return new RecordDigest(ts, new String(node, StandardCharsets.UTF_8),
+                (flags & VersionedValue.FLAG_TOMBSTONE) != 0, (flags & VersionedValue.FLAG_CHUNKED) != 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.luisurdaneta.kv.core.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight over one record in the {@link VersionedValue#toBytes()} layout, read in place.
+ *
+ * The version (ts, nodeId) and flags are read straight from the buffer, so a
+ * version check costs the header whatever the payload size. The buffer may hold only a
+ * prefix of the record (a header-sized read): {@link #wrap} says whether the header is
+ * there, {@link #isComplete()} whether the payload is too. Re-wrappable, not thread-safe.
+ */
+public final class RecordView {
+    /** ts, flags and the two length fields: the header without the nodeId bytes. */
+    public static final int FIXED_HEADER_BYTES = 8 + 1 + 4 + 4;
+
+    private ByteBuffer bb;
+    private int base;
+    private int available; // bytes of the record present in bb
+    private int nodeLen;
+
+    /**
+     * Views the record starting at {@code bb.position()}, with {@code bb.remaining()} bytes of it present.
+     * Returns false if those bytes don't cover the header; the view is unusable then.
+     */
+    public boolean wrap(ByteBuffer bb) {
+        this.bb = bb;
+        this.base = bb.position();
+        this.available = bb.remaining();
+        if (available < FIXED_HEADER_BYTES) return false;
+        this.nodeLen = bb.getInt(base + 9);
+        return nodeLen >= 0 && available >= FIXED_HEADER_BYTES + nodeLen;
+    }
+
+    public long ts() {
+        return bb.getLong(base);
+    }
+
+    public boolean tombstone() {
+        return (bb.get(base + 8) & VersionedValue.FLAG_TOMBSTONE) != 0;
+    }
+
+    /** The payload is a {@link ChunkManifest}, the value's bytes are stored apart. */
+    public boolean chunked() {
+        return (bb.get(base + 8) & VersionedValue.FLAG_CHUNKED) != 0;
+    }
+
+    public String nodeId() {
+        byte[] node = new byte[nodeLen];
+        bb.get(base + 13, node);
+        return new String(node, StandardCharsets.UTF_8);
+    }
+
+    public int payloadLength() {
+        return bb.getInt(base + 13 + nodeLen);
+    }
+
+    public int encodedSize() {
+        return FIXED_HEADER_BYTES + nodeLen + payloadLength();
+    }
+
+    /** Whether the payload is in the buffer too, i.e. {@link #toValue()} can be called. */
+    public boolean isComplete() {
+        return available >= encodedSize();
+    }
+
+    /** Read-only view of the payload bytes, no copy. Requires {@link #isComplete()}. */
+    public ByteBuffer payload() {
+        int off = base + FIXED_HEADER_BYTES + nodeLen;
+        return bb.slice(off, payloadLength()).asReadOnlyBuffer();
+    }
+
+    /** Decodes the whole record. Requires {@link #isComplete()}. */
+    public VersionedValue toValue() {
+        if (!isComplete()) throw new IllegalStateException("record truncated: " + available + " of " + encodedSize() + " bytes");
+        return VersionedValue.readFrom(bb.duplicate().position(base));
+    }
+
+    @Override
+    public String toString() {
+        return "RecordView{ts=" + ts() + ", nodeId=" + nodeId() + ", tombstone=" + tombstone() +
+                (chunked() ? ", chunked" : "") +
+                ", payloadLen=" + payloadLength() + '}';
+    }
+}
@@ -2,68 +2,138 @@ package com.luisurdaneta.kv.core.model;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Objects;
 
 public final class VersionedValue {
+    static final byte FLAG_TOMBSTONE = 1;
+    static final byte FLAG_CHUNKED = 2;
+
     public final long ts;
     public final String nodeId;
     public final boolean tombstone;
-    public final byte[] payload; // null/empty allowed when tombstone
+    public final boolean chunked; // payload is a ChunkManifest; the value's bytes live in a ChunkStore
+    public final Payload payload; // null/empty allowed when tombstone
+
+    public VersionedValue(long ts, String nodeId, boolean tombstone, Payload payload) {
+        this(ts, nodeId, tombstone, false, payload);
+    }
 
-    public VersionedValue(long ts, String nodeId, boolean tombstone, byte[] payload) {
+    public VersionedValue(long ts, String nodeId, boolean tombstone, boolean chunked, Payload payload) {
         this.ts = ts;
         this.nodeId = Objects.requireNonNull(nodeId);
         this.tombstone = tombstone;
-        this.payload = payload == null ? new byte[0] : payload;
+        this.chunked = chunked && !tombstone;
+        this.payload = payload == null ? Payload.EMPTY : payload;
+    }
+
+    /** The record of a value stored in chunks: {@code manifest} is all it carries. */
+    public static VersionedValue chunked(long ts, String nodeId, ChunkManifest manifest) {
+        return new VersionedValue(ts, nodeId, false, true, manifest.toPayload());
+    }
+
+    /** Same (ts, nodeId): the same write, whatever copy of it this is. */
+    public boolean isSameVersion(VersionedValue other) {
+        return other != null && ts == other.ts && nodeId.equals(other.nodeId);
     }
 
+    /**
+     * Last write wins: the later stamp (see {@link HybridTime#compare}), then the greater nodeId.
+     * A plain and a hybrid stamp of the same time tie on the stamp, so the nodeId decides;
+     * only the same nodeId falls back to the raw stamps, keeping the order total.
+     */
     public boolean isNewerThan(VersionedValue other) {
         if (other == null) return true;
-        if (this.ts != other.ts) return this.ts > other.ts;
-        return this.nodeId.compareTo(other.nodeId) > 0;
+        return HybridTime.isNewer(this.ts, this.nodeId, other.ts, other.nodeId);
+    }
+
+    /** Same order as {@link #isNewerThan(VersionedValue)}; the stored nodeId is only decoded on a ts tie. */
+    public boolean isNewerThan(RecordView stored) {
+        if (stored == null) return true;
+        long storedTs = stored.ts();
+        int c = HybridTime.compare(this.ts, storedTs);
+        if (c != 0) return c > 0;
+        c = this.nodeId.compareTo(stored.nodeId());
+        return c != 0 ? c > 0 : this.ts > storedTs;
     }
 
     // simple binary encoding (fast, stable) - format:
-    // [ts:8][tomb:1][nodeLen:4][nodeBytes][payloadLen:4][payloadBytes]
+    // [ts:8][flags:1][nodeLen:4][nodeBytes][payloadLen:4][payloadBytes]
+    // flags: bit 0 tombstone, bit 1 chunked (records written before chunking hold 0 or 1)
     public byte[] toBytes() {
+        ByteBuffer header = header();
+        ByteBuffer bb = ByteBuffer.allocate(header.remaining() + payload.length());
+        bb.put(header);
+        payload.writeTo(bb);
+        return bb.array();
+    }
+
+    public int encodedSize() {
+        return 8 + 1 + 4 + nodeId.getBytes(StandardCharsets.UTF_8).length + 4 + payload.length();
+    }
+
+    /** Writes the {@link #toBytes()} layout at the buffer's position. */
+    public void writeTo(ByteBuffer bb) {
+        bb.put(header());
+        payload.writeTo(bb);
+    }
+
+    /**
+     * Everything of the {@link #toBytes()} layout but the payload bytes, ready to read.
+     * Header then {@code payload.buffer()} is the record without copying the payload.
+     */
+    public ByteBuffer header() {
         byte[] nodeBytes = nodeId.getBytes(StandardCharsets.UTF_8);
-        int size = 8 + 1 + 4 + nodeBytes.length + 4 + payload.length;
-        ByteBuffer bb = ByteBuffer.allocate(size);
+        ByteBuffer bb = ByteBuffer.allocate(8 + 1 + 4 + nodeBytes.length + 4);
         bb.putLong(ts);
-        bb.put((byte) (tombstone ? 1 : 0));
+        bb.put((byte) ((tombstone ? FLAG_TOMBSTONE : 0) | (chunked ? FLAG_CHUNKED : 0)));
         bb.putInt(nodeBytes.length);
         bb.put(nodeBytes);
-        bb.putInt(payload.length);
-        bb.put(payload);
-        return bb.array();
+        bb.putInt(payload.length());
+        return bb.flip();
     }
 
     public static VersionedValue fromBytes(byte[] bytes) {
         if (bytes == null) return null;
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        return readFrom(ByteBuffer.wrap(bytes));
+    }
+
+    /** Reads one record in the {@link #toBytes()} layout from the buffer's position, copying the payload. */
+    public static VersionedValue readFrom(ByteBuffer bb) {
+        return read(bb, false);
+    }
+
+    /**
+     * Like {@link #readFrom} but the payload stays a view into {@code bb}: for buffers
+     * that are never reused, such as a request body read for this record alone.
+     */
+    public static VersionedValue viewFrom(ByteBuffer bb) {
+        return read(bb, true);
+    }
+
+    private static VersionedValue read(ByteBuffer bb, boolean view) {
         long ts = bb.getLong();
-        boolean tomb = bb.get() != 0;
+        byte flags = bb.get();
         int nodeLen = bb.getInt();
         byte[] nodeBytes = new byte[nodeLen];
         bb.get(nodeBytes);
         String nodeId = new String(nodeBytes, StandardCharsets.UTF_8);
         int payloadLen = bb.getInt();
-        byte[] payload = new byte[payloadLen];
-        bb.get(payload);
-        return new VersionedValue(ts, nodeId, tomb, payload);
+        ByteBuffer src = bb.slice(bb.position(), payloadLen);
+        bb.position(bb.position() + payloadLen);
+        Payload payload = view ? Payload.wrap(src) : Payload.copyOf(src);
+        return new VersionedValue(ts, nodeId, (flags & FLAG_TOMBSTONE) != 0, (flags & FLAG_CHUNKED) != 0, payload);
     }
 
     @Override
     public String toString() {
         return "VersionedValue{ts=" + ts + ", nodeId=" + nodeId + ", tombstone=" + tombstone +
-                ", payloadLen=" + payload.length + '}';
+                (chunked ? ", chunked" : "") + ", payloadLen=" + payload.length() + '}';
     }
 
     @Override public boolean equals(Object o) {
         if (!(o instanceof VersionedValue v)) return false;
-        return ts == v.ts && tombstone == v.tombstone &&
-                nodeId.equals(v.nodeId) && Arrays.equals(payload, v.payload);
+        return ts == v.ts && tombstone == v.tombstone && chunked == v.chunked &&
+                nodeId.equals(v.nodeId) && payload.equals(v.payload);
     }
     @Override public int hashCode() { return Objects.hash(ts, nodeId, tombstone); }
 }
@@ -0,0 +1,33 @@
+package com.luisurdaneta.kv.core.ports;
+
+import com.luisurdaneta.kv.core.model.VersionedValue;
+
+/**
+ * The bytes of chunked values (see {@link com.luisurdaneta.kv.core.model.ChunkManifest}),
+ * kept apart from their records. Chunks are stored per version, so writing a new version
+ * of a key never touches the chunks a reader of the current one is streaming.
+ */
+public interface ChunkStore {
+    /** Chunks are written ahead of their record; they are durable once a later synced write is. */
+    void putChunk(String key, VersionedValue version, int index, byte[] data, int length) throws Exception;
+
+    /**
+     * The chunks of {@code version} in index order, from a consistent snapshot: a newer
+     * version superseding (and dropping) them meanwhile doesn't cut the read short.
+     */
+    ChunkCursor readChunks(String key, VersionedValue version) throws Exception;
+
+    boolean hasChunk(String key, VersionedValue version, int index) throws Exception;
+
+    /** Drops every chunk of {@code version}, e.g. an upload whose record lost LWW. */
+    void deleteChunks(String key, VersionedValue version) throws Exception;
+
+    /** Chunks one at a time; holds native resources until closed. */
+    interface ChunkCursor extends AutoCloseable {
+        /** The next chunk, or null past the last one or at a gap. */
+        byte[] next() throws Exception;
+
+        @Override
+        void close();
+    }
+}
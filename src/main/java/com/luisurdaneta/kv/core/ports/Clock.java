@@ -1,7 +1,24 @@
 package com.luisurdaneta.kv.core.ports;
 
+/**
+ * Where version stamps for new writes come from.
+ *
+ * {@link #system()} stamps with the wall clock: last-write-wins then trusts every node's
+ * clock, and writes in the same millisecond fall back to node-id order. A hybrid logical
+ * clock (see {@code HybridLogicalClock}) also {@link #observe observes} the stamps that
+ * reach it, so a write stamped here orders after every write this node has seen.
+ */
 public interface Clock {
-    long nowMillis();
+    /** A version stamp for a new write; see {@code HybridTime} for the encoding. */
+    long nextStamp();
+
+    /** Folds in a stamp received from another node. */
+    default void observe(long stamp) {}
+
+    /** Wall-clock millis, for ages and timeouts; not a version stamp. */
+    default long nowMillis() {
+        return System.currentTimeMillis();
+    }
 
     static Clock system() {
         return System::currentTimeMillis;
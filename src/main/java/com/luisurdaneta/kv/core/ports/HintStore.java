@@ -0,0 +1,19 @@
+package com.luisurdaneta.kv.core.ports;
+
+import com.luisurdaneta.kv.core.model.Hint;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+
+import java.util.List;
+
+/** Durable storage for hinted handoff, kept apart from the node's own data. */
+public interface HintStore {
+    void putHint(String ownerId, String key, VersionedValue vv) throws Exception;
+
+    /** Node ids we currently hold hints for. */
+    List<String> hintOwners() throws Exception;
+
+    /** Up to {@code limit} hints for one owner, oldest key order first. */
+    List<Hint> hintsFor(String ownerId, int limit) throws Exception;
+
+    void deleteHints(List<Hint> delivered) throws Exception;
+}
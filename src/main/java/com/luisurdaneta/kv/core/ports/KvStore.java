@@ -1,12 +1,59 @@
 package com.luisurdaneta.kv.core.ports;
 
 
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 public interface KvStore extends AutoCloseable {
     VersionedValue get(String key) throws Exception;
 
+    /**
+     * Whether the stored version already wins against {@code candidate}, i.e. putIfNewer
+     * would reject it. Stores that can read the version without the payload override this.
+     */
+    default boolean isStale(String key, VersionedValue candidate) throws Exception {
+        return !candidate.isNewerThan(get(key));
+    }
+
+    /** The stored record's digest, null if absent. Stores that can read the version alone override this. */
+    default RecordDigest digest(String key) throws Exception {
+        return RecordDigest.of(get(key));
+    }
+
+    /** putIfNewer at the store's default durability. */
     boolean putIfNewer(String key, VersionedValue candidate) throws Exception;
 
+    /**
+     * {@code durability == null} means the store's default. Stores with a single
+     * durability level ignore it.
+     */
+    default boolean putIfNewer(String key, VersionedValue candidate, Durability durability) throws Exception {
+        return putIfNewer(key, candidate);
+    }
+
+    /**
+     * putIfNewer for many records at once; {@code applied[i]} is the outcome for
+     * {@code keys.get(i)}. Implementations may check and write them as one unit.
+     */
+    default boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates) throws Exception {
+        boolean[] applied = new boolean[keys.size()];
+        for (int i = 0; i < applied.length; i++) applied[i] = putIfNewer(keys.get(i), candidates.get(i));
+        return applied;
+    }
+
+    default boolean[] putAllIfNewer(List<String> keys, List<VersionedValue> candidates, Durability durability)
+            throws Exception {
+        boolean[] applied = new boolean[keys.size()];
+        for (int i = 0; i < applied.length; i++) applied[i] = putIfNewer(keys.get(i), candidates.get(i), durability);
+        return applied;
+    }
+
+    /** Visits every stored record (tombstones included) in key order. */
+    void scan(BiConsumer<String, VersionedValue> visitor) throws Exception;
+
     @Override void close();
 }
\ No newline at end of file
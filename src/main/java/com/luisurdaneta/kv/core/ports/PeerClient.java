@@ -1,16 +1,112 @@
 package com.luisurdaneta.kv.core.ports;
 
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.MerkleTree;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing.TokenRange;
 import com.luisurdaneta.kv.http.Node;
 
+import java.io.InputStream;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 public interface PeerClient {
-    ReplicaPutAck putReplica(Node peer, String key, VersionedValue vv, Duration timeout) throws Exception;
+    /** {@code durability == null} leaves it to the peer's default. */
+    CompletableFuture<ReplicaPutAck> putReplicaAsync(Node peer, String key, VersionedValue vv, Durability durability,
+                                                     Duration timeout);
 
-    ReplicaGetAck getReplica(Node peer, String key, Duration timeout) throws Exception;
+    default CompletableFuture<ReplicaPutAck> putReplicaAsync(Node peer, String key, VersionedValue vv, Duration timeout) {
+        return putReplicaAsync(peer, key, vv, null, timeout);
+    }
+
+    CompletableFuture<ReplicaGetAck> getReplicaAsync(Node peer, String key, Duration timeout);
+
+    /** Reads only the version of {@code key}'s record on {@code peer} (digest read). */
+    CompletableFuture<ReplicaDigestAck> getDigestAsync(Node peer, String key, Duration timeout);
+
+    /** Asks {@code peer} to hold {@code vv} for {@code ownerId} (hinted handoff) instead of applying it. */
+    CompletableFuture<ReplicaPutAck> putHintAsync(Node peer, String key, VersionedValue vv, String ownerId, Duration timeout);
+
+    /**
+     * Puts a chunked record on {@code peer} together with its value: {@code bytes} (opened
+     * again on a retry) is streamed to the peer, which stores the chunks, then the record.
+     */
+    CompletableFuture<ReplicaPutAck> putStreamAsync(Node peer, String key, VersionedValue record,
+                                                    Supplier<InputStream> bytes, Durability durability,
+                                                    Duration timeout);
+
+    /**
+     * Opens the value of chunked {@code version} of {@code key} on {@code peer}, streamed; completes
+     * with null if the peer doesn't hold that version. {@code timeout} covers the response headers.
+     */
+    CompletableFuture<InputStream> getStreamAsync(Node peer, String key, VersionedValue version, Duration timeout);
+
+    /** The peer's Merkle trees for {@code ranges}, in the same order (anti-entropy). */
+    CompletableFuture<List<MerkleTree>> merkleTreesAsync(Node peer, List<TokenRange> ranges, int depth, Duration timeout);
+
+    /** The peer's records falling into the given leaves of each range's tree, all ranges in one request. */
+    CompletableFuture<Map<String, VersionedValue>> rangeLeavesAsync(
+            Node peer, Map<TokenRange, ? extends Collection<Integer>> leaves, int depth, Duration timeout);
+
+    /**
+     * Puts several records on one peer. Implementations may send them as a single request;
+     * the default issues one call per key. Acks are keyed like {@code records}.
+     */
+    default CompletableFuture<Map<String, ReplicaPutAck>> putReplicasAsync(
+            Node peer, Map<String, VersionedValue> records, Durability durability, Duration timeout) {
+        Map<String, CompletableFuture<ReplicaPutAck>> fs = new LinkedHashMap<>();
+        records.forEach((k, vv) -> fs.put(k, putReplicaAsync(peer, k, vv, durability, timeout)));
+        return joinAll(fs);
+    }
+
+    default CompletableFuture<Map<String, ReplicaPutAck>> putReplicasAsync(
+            Node peer, Map<String, VersionedValue> records, Duration timeout) {
+        return putReplicasAsync(peer, records, null, timeout);
+    }
+
+    /** Reads several keys from one peer; see {@link #putReplicasAsync}. */
+    default CompletableFuture<Map<String, ReplicaGetAck>> getReplicasAsync(
+            Node peer, Collection<String> keys, Duration timeout) {
+        Map<String, CompletableFuture<ReplicaGetAck>> fs = new LinkedHashMap<>();
+        for (String k : keys) fs.put(k, getReplicaAsync(peer, k, timeout));
+        return joinAll(fs);
+    }
+
+    default ReplicaPutAck putReplica(Node peer, String key, VersionedValue vv, Duration timeout) throws Exception {
+        return await(putReplicaAsync(peer, key, vv, timeout));
+    }
+
+    default ReplicaGetAck getReplica(Node peer, String key, Duration timeout) throws Exception {
+        return await(getReplicaAsync(peer, key, timeout));
+    }
+
+    private static <T> CompletableFuture<Map<String, T>> joinAll(Map<String, CompletableFuture<T>> fs) {
+        return CompletableFuture.allOf(fs.values().toArray(CompletableFuture[]::new)).thenApply(v -> {
+            Map<String, T> out = new LinkedHashMap<>();
+            fs.forEach((k, f) -> out.put(k, f.join()));
+            return out;
+        });
+    }
+
+    private static <T> T await(CompletableFuture<T> f) throws Exception {
+        try {
+            return f.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof Exception e) throw e;
+            throw ee;
+        }
+    }
 
     record ReplicaPutAck(String peerId, boolean ok, boolean applied, int statusCode) {}
 
     record ReplicaGetAck(String peerId, boolean ack, int statusCode, VersionedValue recordOrNull) {}
+
+    record ReplicaDigestAck(String peerId, boolean ack, int statusCode, RecordDigest digestOrNull) {}
 }
@@ -2,26 +2,39 @@ package com.luisurdaneta.kv.core.ring;
 
 import com.luisurdaneta.kv.http.Node;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.util.*;
 
 
+/**
+ * Immutable consistent-hash ring, compiled at construction time.
+ *
+ * Tokens live in a sorted {@code long[]} and every token carries the precomputed
+ * list of its first {@code rf} distinct successor nodes, so {@link #replicasForKey}
+ * is one hash plus one binary search and returns a shared immutable list.
+ */
 public final class ConsistentHashRing {
     public static final int DEFAULT_VNODES = 64;
+    public static final int DEFAULT_RF = 3;
 
-    private final NavigableMap<Long, Node> ring = new TreeMap<>();
-    private final int vnodes;
+    private final long[] tokens;
+    private final Node[] owners;            // owners[i] owns tokens[i]
+    private final List<List<Node>> successors;  // successors.get(i) = first rf distinct nodes from token i
+    private final int rf;
     private final List<Node> nodes;
 
     public ConsistentHashRing(List<Node> nodes, int vnodes) {
+        this(nodes, vnodes, DEFAULT_RF);
+    }
+
+    public ConsistentHashRing(List<Node> nodes, int vnodes, int rf) {
         if (nodes == null || nodes.isEmpty()) throw new IllegalArgumentException("nodes empty");
         if (vnodes <= 0) throw new IllegalArgumentException("vnodes must be > 0");
+        if (rf <= 0) throw new IllegalArgumentException("rf must be > 0");
 
-        this.vnodes = vnodes;
         this.nodes = List.copyOf(nodes);
+        this.rf = Math.min(rf, this.nodes.size());
 
+        TreeMap<Long, Node> ring = new TreeMap<>();
         for (Node n : this.nodes) {
             for (int i = 0; i < vnodes; i++) {
                 long h = hash64(n.id() + "#" + i);
@@ -30,67 +43,89 @@ public final class ConsistentHashRing {
                 ring.put(h, n);
             }
         }
+
+        int size = ring.size();
+        this.tokens = new long[size];
+        this.owners = new Node[size];
+        int i = 0;
+        for (Map.Entry<Long, Node> e : ring.entrySet()) {
+            tokens[i] = e.getKey();
+            owners[i] = e.getValue();
+            i++;
+        }
+
+        List<List<Node>> succ = new ArrayList<>(size);
+        for (int t = 0; t < size; t++) {
+            succ.add(walk(t, this.rf));
+        }
+        this.successors = succ;
     }
 
     public List<Node> replicasForKey(String key, int rf) {
         if (rf <= 0) throw new IllegalArgumentException("rf must be > 0");
+
         int want = Math.min(rf, nodes.size());
+        int t = tokenIndex(hash64(key));
+        if (want == this.rf) {
+            return successors.get(t);
+        }
+        if (want < this.rf) {
+            return successors.get(t).subList(0, want);
+        }
+        // asked for more than was precomputed
+        return walk(t, want);
+    }
 
-        long keyHash = hash64(key);
-        List<Node> out = new ArrayList<>(want);
-        Set<String> seen = new HashSet<>(want);
+    public Node primaryForKey(String key) {
+        return owners[tokenIndex(hash64(key))];
+    }
 
-        Iterator<Map.Entry<Long, Node>> it = tailThenWrap(keyHash);
+    /** A ring segment (start, end], wrapping around when start >= end. */
+    public record TokenRange(long start, long end) {
+        public boolean contains(long hash) {
+            if (start < end) return hash > start && hash <= end;
+            return hash > start || hash <= end;
+        }
+    }
 
-        while (it.hasNext() && out.size() < want) {
-            Node n = it.next().getValue();
-            if (seen.add(n.id())) {
-                out.add(n);
+    /** Token ranges that {@code nodeId} holds a replica of, each with its replica set. */
+    public Map<TokenRange, List<Node>> rangesReplicatedBy(String nodeId) {
+        Map<TokenRange, List<Node>> out = new LinkedHashMap<>();
+        for (int t = 0; t < tokens.length; t++) {
+            for (Node n : successors.get(t)) {
+                if (n.id().equals(nodeId)) {
+                    long start = tokens[t == 0 ? tokens.length - 1 : t - 1];
+                    out.put(new TokenRange(start, tokens[t]), successors.get(t));
+                    break;
+                }
             }
         }
         return out;
     }
 
-    public Node primaryForKey(String key) {
-        return replicasForKey(key, 1).get(0);
+    /** The ring position of a key; a key belongs to the range containing it. */
+    public static long keyHash(String key) {
+        return hash64(key);
     }
 
-    private Iterator<Map.Entry<Long, Node>> tailThenWrap(long keyHash) {
-        NavigableMap<Long, Node> tail = ring.tailMap(keyHash, true);
-        if (!tail.isEmpty()) {
-            return new Iterator<>() {
-                private Iterator<Map.Entry<Long, Node>> cur = tail.entrySet().iterator();
-                private boolean wrapped = false;
-
-                @Override public boolean hasNext() {
-                    if (cur.hasNext()) return true;
-                    if (!wrapped) return !ring.isEmpty();
-                    return false;
-                }
+    /** Index of the first token >= keyHash, wrapping to 0. */
+    private int tokenIndex(long keyHash) {
+        int i = Arrays.binarySearch(tokens, keyHash);
+        if (i < 0) i = -i - 1;
+        return i == tokens.length ? 0 : i;
+    }
 
-                @Override public Map.Entry<Long, Node> next() {
-                    if (cur.hasNext()) return cur.next();
-                    if (!wrapped) {
-                        wrapped = true;
-                        cur = ring.entrySet().iterator();
-                        return cur.next();
-                    }
-                    throw new NoSuchElementException();
-                }
-            };
-        } else {
-            return ring.entrySet().iterator();
+    private List<Node> walk(int start, int want) {
+        List<Node> out = new ArrayList<>(want);
+        Set<String> seen = new HashSet<>(want);
+        for (int j = 0; j < owners.length && out.size() < want; j++) {
+            Node n = owners[(start + j) % owners.length];
+            if (seen.add(n.id())) out.add(n);
         }
+        return List.copyOf(out);
     }
 
     static long hash64(String s) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] dig = md.digest(s.getBytes(StandardCharsets.UTF_8));
-
-            return ByteBuffer.wrap(dig, 0, 8).getLong();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return Murmur3.hash64(s);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.luisurdaneta.kv.core.ring;
+
+/**
+ * MurmurHash3 x64_128 (seed 0), returning the first 64-bit half.
+ *
+ * Strings are hashed as their UTF-16LE bytes, read straight from the chars, so a
+ * lookup never has to encode the key into a temporary byte[].
+ */
+final class Murmur3 {
+    private Murmur3() {}
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    static long hash64(CharSequence s) {
+        final int chars = s.length();
+        final long len = 2L * chars;
+        long h1 = 0;
+        long h2 = 0;
+
+        // 16-byte blocks = 8 chars
+        int i = 0;
+        for (; i + 8 <= chars; i += 8) {
+            long k1 = block(s, i);
+            long k2 = block(s, i + 4);
+
+            k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // tail: up to 7 chars = 14 bytes; bytes 0..7 go to k1, 8..13 to k2
+        int rem = chars - i;
+        long k1 = 0;
+        long k2 = 0;
+        for (int j = 0; j < rem; j++) {
+            long c = s.charAt(i + j) & 0xFFFFL;
+            if (j < 4) k1 |= c << (16 * j);
+            else k2 |= c << (16 * (j - 4));
+        }
+        if (rem > 4) {
+            k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; h2 ^= k2;
+        }
+        if (rem > 0) {
+            k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+        }
+
+        h1 ^= len;
+        h2 ^= len;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        return h1;
+    }
+
+    private static long block(CharSequence s, int i) {
+        return (s.charAt(i) & 0xFFFFL)
+                | (s.charAt(i + 1) & 0xFFFFL) << 16
+                | (s.charAt(i + 2) & 0xFFFFL) << 32
+                | (s.charAt(i + 3) & 0xFFFFL) << 48;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,14 @@
+package com.luisurdaneta.kv.core.ring;
+
+/**
+ * Source of the current ring. Rings are immutable; callers take one snapshot per
+ * request and route the whole request with it.
+ */
+@FunctionalInterface
+public interface RingProvider {
+    ConsistentHashRing current();
+
+    static RingProvider fixed(ConsistentHashRing ring) {
+        return () -> ring;
+    }
+}
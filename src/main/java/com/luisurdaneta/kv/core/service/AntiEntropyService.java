@@ -0,0 +1,227 @@
+package com.luisurdaneta.kv.core.service;
+
+import com.luisurdaneta.kv.core.cluster.Liveness;
+import com.luisurdaneta.kv.core.model.MerkleTree;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.KvStore;
+import com.luisurdaneta.kv.core.ports.PeerClient;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing.TokenRange;
+import com.luisurdaneta.kv.core.ring.RingProvider;
+import com.luisurdaneta.kv.http.Node;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Merkle-tree anti-entropy between replicas.
+ *
+ * Every {@code interval} this node picks one live peer it shares token ranges with,
+ * builds a tree per shared range from a single scan of the store, and compares it
+ * with the peer's trees. For ranges whose roots differ it walks down to the
+ * differing leaves, pulls the peer's records in those leaves (applied with the
+ * usual putIfNewer) and pushes back the records it has newer. Traffic is the trees
+ * plus the divergent leaves, not the data set. Chunked records travel with their
+ * values, streamed through {@link LargeValueService}, one at a time.
+ */
+public final class AntiEntropyService implements AutoCloseable {
+    private static final int PUSH_CHUNK = 256;
+
+    private final String localNodeId;
+    private final KvStore store;
+    private final ReplicaKvService replicaLocal;
+    private final LargeValueService largeValues;
+    private final PeerClient peers;
+    private final RingProvider rings;
+    private final Liveness liveness;
+    private final int depth;
+    private final Duration interval;
+    private final Duration timeout;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "anti-entropy");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AntiEntropyService(String localNodeId, KvStore store, ReplicaKvService replicaLocal,
+                              LargeValueService largeValues, PeerClient peers, RingProvider rings, Liveness liveness,
+                              int depth, Duration interval, Duration timeout) {
+        this.localNodeId = localNodeId;
+        this.store = store;
+        this.replicaLocal = replicaLocal;
+        this.largeValues = largeValues;
+        this.peers = peers;
+        this.rings = rings;
+        this.liveness = liveness;
+        this.depth = depth;
+        this.interval = interval;
+        this.timeout = timeout;
+    }
+
+    public void start() {
+        timer.scheduleWithFixedDelay(this::round, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void round() {
+        try {
+            ConsistentHashRing ring = rings.current();
+            Map<TokenRange, List<Node>> mine = ring.rangesReplicatedBy(localNodeId);
+
+            List<Node> candidates = new ArrayList<>();
+            for (List<Node> replicas : mine.values()) {
+                for (Node n : replicas) {
+                    if (!n.id().equals(localNodeId) && liveness.isUp(n.id()) && !candidates.contains(n)) candidates.add(n);
+                }
+            }
+            if (candidates.isEmpty()) return;
+            Node peer = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+
+            List<TokenRange> shared = new ArrayList<>();
+            mine.forEach((range, replicas) -> {
+                if (replicas.contains(peer)) shared.add(range);
+            });
+
+            syncWith(peer, shared);
+        } catch (Exception ignored) {
+            // next round
+        }
+    }
+
+    private void syncWith(Node peer, List<TokenRange> shared) throws Exception {
+        List<MerkleTree> local = buildTrees(shared, depth);
+        List<MerkleTree> remote = peers.merkleTreesAsync(peer, shared, depth, timeout).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        Map<TokenRange, Collection<Integer>> divergent = new LinkedHashMap<>();
+        for (int i = 0; i < shared.size(); i++) {
+            if (local.get(i).root() != remote.get(i).root()) {
+                divergent.put(shared.get(i), local.get(i).diffLeaves(remote.get(i)));
+            }
+        }
+        if (divergent.isEmpty()) return;
+
+        // one scan per side for all divergent ranges
+        Map<TokenRange, Map<String, VersionedValue>> ours = leafEntries(divergent, depth);
+        Map<String, VersionedValue> theirs = peers.rangeLeavesAsync(peer, divergent, depth, timeout)
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        // pull
+        for (Map.Entry<String, VersionedValue> t : theirs.entrySet()) {
+            if (t.getValue().chunked) pullChunked(peer, t.getKey(), t.getValue());
+            else replicaLocal.putReplica(t.getKey(), t.getValue());
+        }
+
+        // push
+        Map<String, VersionedValue> push = new LinkedHashMap<>();
+        for (Map<String, VersionedValue> entries : ours.values()) {
+            entries.forEach((key, vv) -> {
+                if (!vv.isNewerThan(theirs.get(key))) return;
+                if (vv.chunked) pushChunked(peer, key, vv);
+                else push.put(key, vv);
+                if (push.size() >= PUSH_CHUNK) {
+                    pushChunk(peer, push);
+                }
+            });
+        }
+        if (!push.isEmpty()) pushChunk(peer, push);
+    }
+
+    private void pullChunked(Node peer, String key, VersionedValue vv) {
+        try {
+            largeValues.pull(peer, key, vv);
+        } catch (Exception ignored) {
+            // next round
+        }
+    }
+
+    private void pushChunked(Node peer, String key, VersionedValue vv) {
+        try {
+            largeValues.push(peer, key, vv).get();
+        } catch (Exception ignored) {
+            // next round
+        }
+    }
+
+    private void pushChunk(Node peer, Map<String, VersionedValue> push) {
+        try {
+            peers.putReplicasAsync(peer, new LinkedHashMap<>(push), timeout).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception ignored) {
+            // whatever didn't land shows up as a diff next round
+        }
+        push.clear();
+    }
+
+    /** One tree per range, in the order given, built from a single scan of the store. */
+    public List<MerkleTree> buildTrees(List<TokenRange> ranges, int depth) throws Exception {
+        RangeIndex index = new RangeIndex(ranges);
+        List<MerkleTree> trees = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) trees.add(new MerkleTree(depth));
+
+        store.scan((key, vv) -> {
+            long h = ConsistentHashRing.keyHash(key);
+            int i = index.find(h);
+            if (i >= 0) trees.get(i).add(h, vv);
+        });
+
+        for (MerkleTree t : trees) t.seal();
+        return trees;
+    }
+
+    /** Records falling into the given leaves of each range, from a single scan. */
+    public Map<TokenRange, Map<String, VersionedValue>> leafEntries(Map<TokenRange, ? extends Collection<Integer>> leaves,
+                                                                   int depth) throws Exception {
+        List<TokenRange> ranges = new ArrayList<>(leaves.keySet());
+        List<Set<Integer>> wanted = new ArrayList<>(ranges.size());
+        Map<TokenRange, Map<String, VersionedValue>> out = new LinkedHashMap<>();
+        for (TokenRange r : ranges) {
+            wanted.add(new HashSet<>(leaves.get(r)));
+            out.put(r, new LinkedHashMap<>());
+        }
+        RangeIndex index = new RangeIndex(ranges);
+
+        store.scan((key, vv) -> {
+            long h = ConsistentHashRing.keyHash(key);
+            int i = index.find(h);
+            if (i >= 0 && wanted.get(i).contains(MerkleTree.leafOf(h, depth))) {
+                out.get(ranges.get(i)).put(key, vv);
+            }
+        });
+        return out;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /** Maps a key hash to the (disjoint) range containing it, by binary search over range ends. */
+    private static final class RangeIndex {
+        private final long[] ends;
+        private final int[] positions;
+        private final List<TokenRange> ranges;
+
+        RangeIndex(List<TokenRange> ranges) {
+            this.ranges = ranges;
+            Integer[] order = new Integer[ranges.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingLong(i -> ranges.get(i).end()));
+
+            this.ends = new long[order.length];
+            this.positions = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                ends[i] = ranges.get(order[i]).end();
+                positions[i] = order[i];
+            }
+        }
+
+        int find(long h) {
+            if (ends.length == 0) return -1;
+            int i = Arrays.binarySearch(ends, h);
+            if (i < 0) i = -i - 1;
+            if (i == ends.length) i = 0; // past the last end: only a wrapping range can hold it
+            int pos = positions[i];
+            return ranges.get(pos).contains(h) ? pos : -1;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.luisurdaneta.kv.core.service;
+
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Node-wide scheduler shared by the read and write coordinators.
+ *
+ * Local (blocking) replica work runs on virtual threads; remote replica calls are
+ * already asynchronous. Once a coordinator has its quorum it {@link #detach detaches}
+ * whatever is still in flight so the client gets its answer right away; detached
+ * stragglers and read repairs count against a single background budget, and
+ * anything over that budget is cancelled or dropped.
+ */
+public final class CoordinatorExecutor implements AutoCloseable {
+    private final ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore background;
+
+    public CoordinatorExecutor(int maxBackgroundTasks) {
+        if (maxBackgroundTasks <= 0) throw new IllegalArgumentException("maxBackgroundTasks must be > 0");
+        this.background = new Semaphore(maxBackgroundTasks);
+    }
+
+    /** Runs blocking work (local store access) on a virtual thread. */
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> cf = new CompletableFuture<>();
+        try {
+            exec.execute(() -> {
+                try {
+                    cf.complete(task.call());
+                } catch (Throwable t) {
+                    cf.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cf.completeExceptionally(e);
+        }
+        return cf;
+    }
+
+    /**
+     * Lets unfinished fan-out calls keep running after the caller has returned.
+     * Calls that do not fit in the background budget are cancelled.
+     */
+    public void detach(Collection<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> f : futures) {
+            if (f.isDone()) continue;
+            if (background.tryAcquire()) {
+                f.whenComplete((v, err) -> background.release());
+            } else {
+                f.cancel(true);
+            }
+        }
+    }
+
+    /** Best-effort background work (read repair). Returns false if the budget is exhausted. */
+    public boolean runBackground(Supplier<? extends CompletableFuture<?>> op) {
+        if (!background.tryAcquire()) return false;
+        CompletableFuture<?> f;
+        try {
+            f = op.get();
+        } catch (RuntimeException e) {
+            background.release();
+            return false;
+        }
+        f.whenComplete((v, err) -> background.release());
+        return true;
+    }
+
+    @Override
+    public void close() {
+        exec.shutdownNow();
+    }
+}
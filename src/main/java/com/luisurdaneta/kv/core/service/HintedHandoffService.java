@@ -0,0 +1,129 @@
+package com.luisurdaneta.kv.core.service;
+
+import com.luisurdaneta.kv.core.cluster.Liveness;
+import com.luisurdaneta.kv.core.cluster.Membership;
+import com.luisurdaneta.kv.core.model.Hint;
+import com.luisurdaneta.kv.core.model.HybridTime;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.Clock;
+import com.luisurdaneta.kv.core.ports.HintStore;
+import com.luisurdaneta.kv.core.ports.PeerClient;
+import com.luisurdaneta.kv.http.Node;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background replay of hinted writes.
+ *
+ * Every {@code interval}, for each owner we hold hints for that is in the ring and
+ * believed up, sends up to {@code batchSize} hints as one batched replica put and
+ * deletes the ones that were acked. Total replay is capped at {@code maxPerSecond}
+ * so a recovering node isn't flattened by its backlog. Hints older than
+ * {@code ttl} are dropped; by then anti-entropy is the better tool.
+ */
+public final class HintedHandoffService implements AutoCloseable {
+    private final String localNodeId;
+    private final HintStore hints;
+    private final PeerClient peers;
+    private final Membership membership;
+    private final Liveness liveness;
+    private final Clock clock;
+
+    private final Duration interval;
+    private final int batchSize;
+    private final int maxPerSecond;
+    private final Duration ttl;
+    private final Duration timeout;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "hint-replay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public HintedHandoffService(String localNodeId, HintStore hints, PeerClient peers, Membership membership,
+                                Liveness liveness, Clock clock, Duration interval, int batchSize,
+                                int maxPerSecond, Duration ttl, Duration timeout) {
+        this.localNodeId = localNodeId;
+        this.hints = hints;
+        this.peers = peers;
+        this.membership = membership;
+        this.liveness = liveness;
+        this.clock = clock;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.maxPerSecond = maxPerSecond;
+        this.ttl = ttl;
+        this.timeout = timeout;
+    }
+
+    public void start() {
+        timer.scheduleWithFixedDelay(this::replay, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void replay() {
+        int budget = (int) Math.max(1, (long) maxPerSecond * interval.toMillis() / 1000);
+
+        Map<String, Node> ring = new HashMap<>();
+        for (Node n : membership.snapshot().nodes()) ring.put(n.id(), n);
+
+        List<String> owners;
+        try {
+            owners = hints.hintOwners();
+        } catch (Exception e) {
+            return; // next round
+        }
+        for (String ownerId : owners) {
+            if (budget <= 0) return;
+            Node owner = ring.get(ownerId);
+            if (owner == null || ownerId.equals(localNodeId) || !liveness.isUp(ownerId)) continue;
+
+            // one owner that times out or errors must not hold up the others
+            try {
+                budget -= deliver(owner, Math.min(batchSize, budget));
+            } catch (Exception ignored) {
+                // its hints stay for the next round
+            }
+        }
+    }
+
+    /** Returns how many hints were consumed (delivered or expired). */
+    private int deliver(Node owner, int limit) throws Exception {
+        List<Hint> batch = hints.hintsFor(owner.id(), limit);
+        if (batch.isEmpty()) return 0;
+
+        long oldest = clock.nowMillis() - ttl.toMillis();
+        List<Hint> expired = new ArrayList<>();
+        Map<String, VersionedValue> newest = new LinkedHashMap<>();
+        for (Hint h : batch) {
+            if (HybridTime.physicalMillis(h.value().ts) < oldest) {
+                expired.add(h);
+                continue;
+            }
+            newest.merge(h.key(), h.value(), (a, b) -> b.isNewerThan(a) ? b : a);
+        }
+        if (!expired.isEmpty()) hints.deleteHints(expired);
+        if (newest.isEmpty()) return batch.size();
+
+        Map<String, PeerClient.ReplicaPutAck> acks =
+                peers.putReplicasAsync(owner, newest, timeout).get(timeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+
+        List<Hint> delivered = new ArrayList<>();
+        for (Hint h : batch) {
+            PeerClient.ReplicaPutAck ack = acks.get(h.key());
+            // the newest version for the key was acked, so older ones are covered too
+            if (ack != null && ack.ok() && HybridTime.physicalMillis(h.value().ts) >= oldest) delivered.add(h);
+        }
+        if (!delivered.isEmpty()) hints.deleteHints(delivered);
+        return batch.size();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
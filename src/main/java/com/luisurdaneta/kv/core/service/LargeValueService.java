@@ -0,0 +1,305 @@
+package com.luisurdaneta.kv.core.service;
+
+import com.luisurdaneta.kv.core.cluster.Liveness;
+import com.luisurdaneta.kv.core.model.ChunkManifest;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.ChunkStore;
+import com.luisurdaneta.kv.core.ports.Clock;
+import com.luisurdaneta.kv.core.ports.PeerClient;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.ring.RingProvider;
+import com.luisurdaneta.kv.core.service.ReadCoordinatorService.ReadResult;
+import com.luisurdaneta.kv.core.service.ReplicaKvService.PutReplicaResult;
+import com.luisurdaneta.kv.core.service.WriteCoordinatorService.WriteResult;
+import com.luisurdaneta.kv.http.Node;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Values too large to buffer, moved as streams end to end.
+ *
+ * A client body is cut into {@link ChunkManifest#CHUNK_BYTES} chunks as it arrives and
+ * spooled into this node's {@link ChunkStore}; the record then carries just a manifest
+ * and goes through the usual LWW path. Each replica gets the chunks streamed from the
+ * spool and applies the record once it holds all of them. Reads resolve the quorum on
+ * records (version headers, no bytes) and stream only the winner's chunks, from a replica
+ * that holds them. A transfer holds one chunk at a time, whatever the value size.
+ *
+ * Streamed writes leave no hints (a hint would have to carry the bytes) and read repair
+ * skips chunked records: a replica that misses one catches up through anti-entropy,
+ * which streams chunked records in both directions.
+ */
+public final class LargeValueService {
+    private final String localNodeId;
+    private final RingProvider rings;
+    private final ReplicaKvService replicaLocal;
+    private final ChunkStore chunks;
+    private final PeerClient peers;
+    private final Clock clock;
+    private final CoordinatorExecutor exec;
+    private final Liveness liveness;
+
+    private final int rf;    // replication factor
+    private final int w;
+    private final Duration timeout; // one whole transfer
+
+    public LargeValueService(
+            String localNodeId,
+            RingProvider rings,
+            ReplicaKvService replicaLocal,
+            ChunkStore chunks,
+            PeerClient peers,
+            Clock clock,
+            CoordinatorExecutor exec,
+            Liveness liveness,
+            int rf,
+            int w,
+            Duration timeout
+    ) {
+        this.localNodeId = localNodeId;
+        this.rings = rings;
+        this.replicaLocal = replicaLocal;
+        this.chunks = chunks;
+        this.peers = peers;
+        this.clock = clock;
+        this.exec = exec;
+        this.liveness = liveness;
+        this.rf = rf;
+        this.w = w;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Quorum write of the value in {@code body}: {@code length} bytes, or up to EOF if
+     * {@code length < 0}. The spooled chunks stay here only if this node is a replica.
+     */
+    public WriteResult put(String key, InputStream body, long length, Durability durability) throws Exception {
+        ConsistentHashRing ring = rings.current(); // one ring per request
+        List<Node> replicas = ring.replicasForKey(key, rf);
+        VersionedValue vv = spool(key, clock.nextStamp(), localNodeId, body, length);
+        List<Node> targets = Liveness.select(replicas, liveness, w);
+
+        Quorum<Boolean> quorum = new Quorum<>(w, targets.size(), ok -> ok);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(targets.size());
+        for (Node peer : targets) {
+            CompletableFuture<Boolean> f = sendOne(peer, key, vv, durability);
+            futures.add(f);
+            quorum.track(f);
+        }
+
+        try {
+            quorum.await(timeout);
+        } finally {
+            exec.detach(futures);
+        }
+        // once every transfer has read them, the spool goes unless it became this node's copy
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((v, err) -> exec.supply(() -> dropUnlessStored(key, vv)));
+
+        int acks = quorum.acks();
+        return quorum.reached()
+                ? WriteResult.success(key, vv.ts, vv.nodeId, false, acks, w, replicas)
+                : WriteResult.fail(key, vv.ts, vv.nodeId, false, acks, w, replicas);
+    }
+
+    private CompletableFuture<Boolean> sendOne(Node peer, String key, VersionedValue vv, Durability durability) {
+        if (peer.id().equals(localNodeId)) {
+            // the chunks are already here
+            return exec.supply(() -> {
+                replicaLocal.putReplica(key, vv, durability);
+                return true;
+            });
+        }
+        return peers.putStreamAsync(peer, key, vv, () -> open(key, vv), durability, timeout)
+                .handle((r, err) -> err == null && r.ok());
+    }
+
+    /**
+     * A replica's side of a streamed write (coordinator or anti-entropy push): stores the
+     * chunks read from {@code body}, then the record. A version that already lost LWW is
+     * turned down before any of the body is read.
+     */
+    public PutReplicaResult accept(String key, long ts, String nodeId, InputStream body, long length,
+                                   Durability durability) throws Exception {
+        VersionedValue record = VersionedValue.chunked(ts, nodeId, new ChunkManifest(length));
+        if (replicaLocal.isStale(key, record)) return new PutReplicaResult(false, ts, nodeId, false);
+
+        spool(key, ts, nodeId, body, length);
+        return commit(key, record, durability);
+    }
+
+    /**
+     * Opens the value of a chunked read result: here if this node holds the winner, else
+     * from the first other holder that still does. Null if none can serve it.
+     */
+    public InputStream open(String key, ReadResult rr) throws Exception {
+        VersionedValue version = new VersionedValue(rr.ts(), rr.nodeId(), false, true, rr.payload());
+        List<Node> holders = new ArrayList<>(rr.holders());
+        holders.sort((a, b) -> Boolean.compare(!a.id().equals(localNodeId), !b.id().equals(localNodeId)));
+
+        for (Node peer : holders) {
+            if (peer.id().equals(localNodeId)) {
+                if (holdsAll(key, version)) return open(key, version);
+                continue;
+            }
+            try {
+                InputStream in = peers.getStreamAsync(peer, key, version, timeout)
+                        .get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+                if (in != null) return in;
+            } catch (Exception e) {
+                // try the next holder
+            }
+        }
+        return null;
+    }
+
+    /** The record stored here if it is chunked {@code ts}/{@code nodeId}, else null: what a replica stream GET serves. */
+    public VersionedValue localVersion(String key, long ts, String nodeId) throws Exception {
+        VersionedValue vv = current(key);
+        return vv != null && vv.chunked && vv.ts == ts && vv.nodeId.equals(nodeId) ? vv : null;
+    }
+
+    /** The value of chunked {@code record} from this node's chunks, read one chunk at a time. */
+    public InputStream open(String key, VersionedValue record) {
+        return new ChunkInputStream(chunks, key, record);
+    }
+
+    /** Anti-entropy push: streams {@code record}'s chunks from here to {@code peer}. */
+    public CompletableFuture<PeerClient.ReplicaPutAck> push(Node peer, String key, VersionedValue record) {
+        return peers.putStreamAsync(peer, key, record, () -> open(key, record), null, timeout);
+    }
+
+    /** Anti-entropy pull: fetches {@code record}'s value from {@code peer} and applies it here. */
+    public boolean pull(Node peer, String key, VersionedValue record) throws Exception {
+        if (replicaLocal.isStale(key, record)) return false;
+        InputStream in = peers.getStreamAsync(peer, key, record, timeout).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (in == null) return false; // superseded there meanwhile
+        try (in) {
+            spool(key, record.ts, record.nodeId, in, ChunkManifest.of(record).length());
+        }
+        return commit(key, record, null).applied();
+    }
+
+    /**
+     * Reads {@code body} into chunks of version {@code ts}/{@code nodeId} and returns its record.
+     * A body that ends short of {@code length} fails, and its chunks are dropped.
+     */
+    private VersionedValue spool(String key, long ts, String nodeId, InputStream body, long length) throws Exception {
+        // chunks are keyed by version alone, the manifest isn't known yet
+        VersionedValue version = new VersionedValue(ts, nodeId, false, true, Payload.EMPTY);
+        byte[] chunk = new byte[ChunkManifest.CHUNK_BYTES];
+        long total = 0;
+        try {
+            for (int index = 0; ; index++) {
+                int want = length < 0 ? chunk.length : (int) Math.min(chunk.length, length - total);
+                if (want == 0) break;
+                int n = body.readNBytes(chunk, 0, want);
+                if (n > 0) chunks.putChunk(key, version, index, chunk, n);
+                total += n;
+                if (n < want) break;
+            }
+            if (length >= 0 && total < length) {
+                throw new EOFException("body ended after " + total + " of " + length + " bytes");
+            }
+        } catch (Exception e) {
+            chunks.deleteChunks(key, version);
+            throw e;
+        }
+        return VersionedValue.chunked(ts, nodeId, new ChunkManifest(total));
+    }
+
+    /** putReplica, dropping the chunks again if the record lost to a different version. */
+    private PutReplicaResult commit(String key, VersionedValue record, Durability durability) throws Exception {
+        PutReplicaResult r = replicaLocal.putReplica(key, record, durability);
+        if (!r.applied()) dropUnlessStored(key, record);
+        return r;
+    }
+
+    private Void dropUnlessStored(String key, VersionedValue record) throws Exception {
+        if (!record.isSameVersion(current(key))) chunks.deleteChunks(key, record);
+        return null;
+    }
+
+    private boolean holdsAll(String key, VersionedValue record) throws Exception {
+        int n = ChunkManifest.of(record).chunks();
+        return n == 0 || chunks.hasChunk(key, record, n - 1);
+    }
+
+    private VersionedValue current(String key) throws Exception {
+        return replicaLocal.getReplica(key) instanceof ReplicaKvService.GetReplicaResult.Found f ? f.record() : null;
+    }
+
+    /**
+     * A chunked value as a stream over a {@link ChunkStore.ChunkCursor}, opened on the first read;
+     * fails rather than ending early if chunks are missing.
+     */
+    private static final class ChunkInputStream extends InputStream {
+        private final ChunkStore store;
+        private final String key;
+        private final VersionedValue record;
+        private final long length;
+
+        private ChunkStore.ChunkCursor cursor;
+        private byte[] chunk;
+        private int pos;
+        private long read;
+
+        ChunkInputStream(ChunkStore store, String key, VersionedValue record) {
+            this.store = store;
+            this.key = key;
+            this.record = record;
+            this.length = ChunkManifest.of(record).length();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (chunk == null || pos == chunk.length) {
+                if (read == length) return -1;
+                chunk = nextChunk();
+                pos = 0;
+            }
+            int n = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            read += n;
+            return n;
+        }
+
+        private byte[] nextChunk() throws IOException {
+            try {
+                if (cursor == null) cursor = store.readChunks(key, record);
+                byte[] next = cursor.next();
+                if (next == null || next.length == 0) {
+                    throw new EOFException("chunks of " + key + " end after " + read + " of " + length + " bytes");
+                }
+                return next;
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (cursor != null) cursor.close();
+            cursor = null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.luisurdaneta.kv.core.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Collects replica responses for one coordinated operation.
+ *
+ * Every response bumps a single counter; the operation is decided as soon as
+ * {@code required} positive acks have arrived or every replica has answered,
+ * whichever comes first. No thread polls for completions.
+ */
+final class Quorum<A> {
+    private final int required;
+    private final int total;
+    private final Predicate<A> isAck;
+
+    // high 16 bits: positive acks, low 16 bits: completed responses
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ConcurrentLinkedQueue<A> responses = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Void> decided = new CompletableFuture<>();
+
+    Quorum(int required, int total, Predicate<A> isAck) {
+        this.required = required;
+        this.total = total;
+        this.isAck = isAck;
+        if (total == 0) decided.complete(null);
+    }
+
+    void track(CompletableFuture<A> f) {
+        f.whenComplete(this::onResponse);
+    }
+
+    private void onResponse(A a, Throwable err) {
+        boolean ok = err == null && a != null && isAck.test(a);
+        if (ok) responses.add(a);
+
+        int c = counter.addAndGet(ok ? 0x1_0001 : 1);
+        if ((c >>> 16) >= required || (c & 0xFFFF) >= total) {
+            decided.complete(null);
+        }
+    }
+
+    /** Waits until the quorum is decided or {@code timeout} passes. */
+    void await(Duration timeout) throws InterruptedException {
+        try {
+            decided.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // decided by what has arrived so far
+        }
+    }
+
+    /** Like {@link #await}, but also returns as soon as any of {@code others} completes. */
+    void awaitAny(Duration timeout, List<? extends CompletableFuture<?>> others) throws InterruptedException {
+        CompletableFuture<?>[] fs = new CompletableFuture<?>[others.size() + 1];
+        fs[0] = decided;
+        for (int i = 0; i < others.size(); i++) fs[i + 1] = others.get(i);
+        try {
+            CompletableFuture.anyOf(fs).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException | CancellationException ignored) {
+            // decided by what has arrived so far
+        }
+    }
+
+    boolean isDecided() {
+        return decided.isDone();
+    }
+
+    int acks() {
+        return counter.get() >>> 16;
+    }
+
+    boolean reached() {
+        return acks() >= required;
+    }
+
+    List<A> responses() {
+        return List.copyOf(responses);
+    }
+}
@@ -1,20 +1,46 @@
 package com.luisurdaneta.kv.core.service;
 
+import com.luisurdaneta.kv.core.cluster.Liveness;
+import com.luisurdaneta.kv.core.cluster.PeerLatencies;
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.Clock;
 import com.luisurdaneta.kv.core.ports.PeerClient;
 import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.ring.RingProvider;
 import com.luisurdaneta.kv.http.Node;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Quorum reads.
+ *
+ * A single-key read takes the record from one replica (the data replica) and only a
+ * digest, the version without the payload, from the others, so a large value crosses the
+ * network once. If a digest shows a newer version than the data replica returned (or
+ * the data replica didn't answer in time), the full record is fetched again from a
+ * replica whose digest carries that version.
+ *
+ * With speculative retry on, a single-key read goes to the R fastest replicas only (by
+ * {@link PeerLatencies}). One that fails, or hasn't answered by its own recent p95, gets
+ * a hedged request to the next replica; the first R answers win. Multi-key reads are
+ * already batched per peer and read full records from every replica.
+ */
 public final class ReadCoordinatorService {
     private final String localNodeId;
-    private final ConsistentHashRing ring;
+    private final RingProvider rings;
     private final ReplicaKvService replicaLocal;
     private final PeerClient peers;
+    private final Clock clock;
+    private final CoordinatorExecutor exec;
+    private final Liveness liveness;
+    private final PeerLatencies latencies;
+    private final boolean speculativeRetry;
 
     private final int rf;    // replication factor
     private final int r;
@@ -23,18 +49,28 @@ public final class ReadCoordinatorService {
 
     public ReadCoordinatorService(
             String localNodeId,
-            ConsistentHashRing ring,
+            RingProvider rings,
             ReplicaKvService replicaLocal,
             PeerClient peers,
+            Clock clock,
+            CoordinatorExecutor exec,
+            Liveness liveness,
+            PeerLatencies latencies,
+            boolean speculativeRetry,
             int rf,
             int r,
             Duration perRequestTimeout,
             Duration overallTimeout
     ) {
         this.localNodeId = localNodeId;
-        this.ring = ring;
+        this.rings = rings;
         this.replicaLocal = replicaLocal;
         this.peers = peers;
+        this.clock = clock;
+        this.exec = exec;
+        this.liveness = liveness;
+        this.latencies = latencies;
+        this.speculativeRetry = speculativeRetry;
         this.rf = rf;
         this.r = r;
         this.perRequestTimeout = perRequestTimeout;
@@ -42,94 +78,345 @@ public final class ReadCoordinatorService {
     }
 
     public ReadResult get(String key) throws Exception {
+        ConsistentHashRing ring = rings.current(); // one ring per request
         List<Node> replicas = ring.replicasForKey(key, rf);
+        List<Node> targets = readOrder(Liveness.select(replicas, liveness, r)); // skip replicas known to be down
 
-        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
-            CompletionService<ReadAck> cs = new ExecutorCompletionService<>(exec);
-            List<Future<ReadAck>> futures = new ArrayList<>(replicas.size());
+        Quorum<ReadAck> quorum = new Quorum<>(r, targets.size(), ReadAck::ack);
+        List<Attempt> attempts = new ArrayList<>(targets.size());
+        int first = speculativeRetry ? Math.min(r, targets.size()) : targets.size();
+        for (int i = 0; i < first; i++) attempts.add(send(targets.get(i), key, i == 0, quorum));
 
-            for (Node peer : replicas) {
-                futures.add(cs.submit(() -> readOne(peer, key)));
+        long deadline = System.nanoTime() + overallTimeout.toNanos();
+        try {
+            while (attempts.size() < targets.size()) {
+                long now = System.nanoTime();
+                long hedgeAt = Math.min(nextHedgeAt(attempts), deadline);
+                // woken early by any answer: a failure is hedged right away
+                if (hedgeAt > now) quorum.awaitAny(Duration.ofNanos(hedgeAt - now), unhedged(attempts));
+                if (quorum.isDecided() || System.nanoTime() >= deadline) break;
+
+                Attempt late = overdue(attempts, System.nanoTime());
+                if (late == null) continue;
+                // a replica failed or runs past its usual p95 (GC pause, noisy node): hedge to the next one,
+                // for the record itself if no data read has answered yet
+                late.hedged = true;
+                attempts.add(send(targets.get(attempts.size()), key, !hasData(attempts), quorum));
             }
+            quorum.await(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+            return resolveDigests(key, replicas, quorum, dataReads(attempts));
+        } finally {
+            // don't make the client wait on stragglers
+            List<CompletableFuture<ReadAck>> futures = new ArrayList<>(attempts.size());
+            for (Attempt at : attempts) futures.add(at.read);
+            exec.detach(futures);
+        }
+    }
 
-            int acks = 0;
-            List<ReadAck> responses = new ArrayList<>(r);
-            long deadline = System.nanoTime() + overallTimeout.toNanos();
+    /**
+     * Fastest replicas first, but this node leads when it is one: its data read costs no
+     * network hop, and if this node is stalled the request is stalled anyway.
+     */
+    private List<Node> readOrder(List<Node> targets) {
+        List<Node> ordered = latencies.fastestFirst(targets);
+        for (int i = 1; i < ordered.size(); i++) {
+            if (ordered.get(i).id().equals(localNodeId)) {
+                ordered.add(0, ordered.remove(i));
+                break;
+            }
+        }
+        return ordered;
+    }
 
-            for (int i = 0; i < replicas.size(); i++) {
-                long remaining = deadline - System.nanoTime();
-                if (remaining <= 0) break;
+    /** A full read ({@code data}) or a digest read of {@code key} on {@code peer}, timed for ranking. */
+    private Attempt send(Node peer, String key, boolean data, Quorum<ReadAck> quorum) {
+        long sentAt = System.nanoTime();
+        CompletableFuture<ReadAck> read = data ? readOne(peer, key) : digestOne(peer, key);
+        read.whenComplete((a, err) -> {
+            if (err instanceof CancellationException) return; // detached straggler: says nothing
+            // a failed read counts as a timeout, so a replica that errors fast doesn't rank first
+            long nanos = err == null && a.ack ? System.nanoTime() - sentAt : perRequestTimeout.toNanos();
+            latencies.record(peer.id(), nanos);
+        });
+        quorum.track(read);
+        return new Attempt(peer, data, sentAt, read);
+    }
 
-                Future<ReadAck> f = cs.poll(remaining, TimeUnit.NANOSECONDS);
-                if (f == null) break;
+    /** When the earliest unhedged attempt becomes overdue; Long.MAX_VALUE if none can. */
+    private long nextHedgeAt(List<Attempt> attempts) {
+        long at = Long.MAX_VALUE;
+        for (Attempt a : attempts) at = Math.min(at, hedgeAt(a));
+        return at;
+    }
 
-                ReadAck ack;
-                try {
-                    ack = f.get();
-                } catch (ExecutionException ee) {
-                    continue;
-                }
+    private Attempt overdue(List<Attempt> attempts, long now) {
+        for (Attempt a : attempts) {
+            if (hedgeAt(a) <= now) return a;
+        }
+        return null;
+    }
 
-                if (!ack.ack) continue;
+    private long hedgeAt(Attempt a) {
+        if (a.hedged) return Long.MAX_VALUE;
+        if (a.read.isDone()) return a.succeeded() ? Long.MAX_VALUE : a.sentAt;
+        long delay = latencies.hedgeDelayNanos(a.peer.id());
+        return a.sentAt + (delay < 0 ? perRequestTimeout.toNanos() : delay);
+    }
 
-                acks++;
-                responses.add(ack);
+    private static List<CompletableFuture<ReadAck>> unhedged(List<Attempt> attempts) {
+        List<CompletableFuture<ReadAck>> out = new ArrayList<>(attempts.size());
+        for (Attempt a : attempts) {
+            if (!a.hedged && !a.read.isDone()) out.add(a.read);
+        }
+        return out;
+    }
 
-                if (acks >= r) {
-                    for (Future<ReadAck> fut : futures) fut.cancel(true);
-                    break;
-                }
+    private static boolean hasData(List<Attempt> attempts) {
+        for (Attempt a : attempts) {
+            if (a.data && a.succeeded()) return true;
+        }
+        return false;
+    }
+
+    private static List<CompletableFuture<ReadAck>> dataReads(List<Attempt> attempts) {
+        List<CompletableFuture<ReadAck>> out = new ArrayList<>(1);
+        for (Attempt a : attempts) {
+            if (a.data) out.add(a.read);
+        }
+        return out;
+    }
+
+    /**
+     * Quorum read of many keys. Keys are grouped by replica so each peer gets one
+     * batched request; R is still checked per key. Results keep the order of {@code keys}.
+     */
+    public List<ReadResult> getMany(Collection<String> keys) throws Exception {
+        ConsistentHashRing ring = rings.current();
+        Map<String, List<Node>> replicasByKey = new LinkedHashMap<>();
+        Map<String, Quorum<ReadAck>> quorums = new HashMap<>();
+        Map<Node, List<String>> keysByPeer = new LinkedHashMap<>();
+
+        for (String key : keys) {
+            if (replicasByKey.containsKey(key)) continue;
+            List<Node> replicas = ring.replicasForKey(key, rf);
+            List<Node> targets = Liveness.select(replicas, liveness, r);
+            replicasByKey.put(key, replicas);
+            quorums.put(key, new Quorum<>(r, targets.size(), ReadAck::ack));
+            for (Node peer : targets) keysByPeer.computeIfAbsent(peer, p -> new ArrayList<>()).add(key);
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(keysByPeer.size());
+        keysByPeer.forEach((peer, peerKeys) -> {
+            CompletableFuture<Map<String, ReadAck>> f = readMany(peer, peerKeys);
+            futures.add(f);
+            for (String key : peerKeys) {
+                quorums.get(key).track(f.thenApply(m -> m.get(key)));
             }
+        });
 
-            if (acks < r) {
-                for (Future<ReadAck> fut : futures) fut.cancel(true);
-                return ReadResult.fail(key, acks, r, replicas);
+        long deadline = System.nanoTime() + overallTimeout.toNanos();
+        try {
+            for (Quorum<ReadAck> q : quorums.values()) {
+                q.await(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
             }
+        } finally {
+            exec.detach(futures);
+        }
+
+        List<ReadResult> out = new ArrayList<>(replicasByKey.size());
+        for (Map.Entry<String, List<Node>> e : replicasByKey.entrySet()) {
+            out.add(resolve(e.getKey(), e.getValue(), quorums.get(e.getKey())));
+        }
+        return out;
+    }
+
+    private ReadResult resolveDigests(String key, List<Node> replicas, Quorum<ReadAck> quorum,
+                                      List<CompletableFuture<ReadAck>> dataReads) throws InterruptedException {
+        List<ReadAck> responses = quorum.responses();
+        int acks = responses.size();
+
+        if (acks < r) {
+            return ReadResult.fail(key, acks, r, replicas);
+        }
+
+        ReadAck data = null;
+        RecordDigest newest = null;
+        for (ReadAck ra : responses) {
+            if (!ra.digestOnly) {
+                if (data == null || ra.recordOrNull != null && ra.recordOrNull.isNewerThan(data.recordOrNull)) data = ra;
+            } else if (ra.digestOrNull != null && ra.digestOrNull.isNewerThan(newest)) newest = ra.digestOrNull;
+        }
 
-            // lww
-            VersionedValue winner = resolveWinner(responses);
-
-            // read repair
-            if (winner != null) {
-                for (ReadAck ra : responses) {
-                    if (isStale(ra.recordOrNull, winner)) {
-                        Node peer = ra.peer;
-                        exec.submit(() -> {
-                            try { repairOne(peer, key, winner); } catch (Exception ignored) {}
-                        });
-                    }
+        VersionedValue winner = data == null ? null : data.recordOrNull;
+        if (newest != null && newest.isNewerThan(winner)) {
+            // digest mismatch: the data replica is behind, or its answer isn't in yet
+            winner = fetchNewest(key, responses, dataReads, newest);
+            if (winner == null) return ReadResult.fail(key, acks, r, replicas);
+        }
+
+        // read repair, off the request path; chunked values are left to anti-entropy as in resolve()
+        if (winner != null && !winner.chunked) {
+            for (ReadAck ra : responses) {
+                if (ra.isStale(winner)) {
+                    Node peer = ra.peer;
+                    VersionedValue repair = winner;
+                    exec.runBackground(() -> repairOne(peer, key, repair));
                 }
             }
+        }
+
+        if (winner == null || winner.tombstone) {
+            return ReadResult.notFound(key, acks, r, replicas, winner);
+        }
+        if (winner.chunked) {
+            return ReadResult.chunked(key, acks, r, replicas, winner, holders(responses, winner));
+        }
+        return ReadResult.found(key, acks, r, replicas, winner);
+    }
+
+    /**
+     * A record at least as new as {@code newest}: from a data replica if its answer turns
+     * up, else from the replicas whose digest carries that version, one at a time.
+     * Null if none of them can provide it.
+     */
+    private VersionedValue fetchNewest(String key, List<ReadAck> responses, List<CompletableFuture<ReadAck>> dataReads,
+                                       RecordDigest newest) throws InterruptedException {
+        VersionedValue v;
+        for (CompletableFuture<ReadAck> dataRead : dataReads) {
+            v = atLeast(dataRead, newest);
+            if (v != null) return v;
+        }
+        for (ReadAck ra : responses) {
+            if (!newest.isSameVersion(ra.digestOrNull)) continue;
+            v = atLeast(readOne(ra.peer, key), newest);
+            if (v != null) return v;
+        }
+        return null;
+    }
 
-            // hide tombstones to public
-            if (winner == null || winner.tombstone) {
-                return ReadResult.notFound(key, acks, r, replicas, winner);
+    private VersionedValue atLeast(CompletableFuture<ReadAck> read, RecordDigest newest) throws InterruptedException {
+        try {
+            ReadAck a = read.get(perRequestTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            return a.ack && a.recordOrNull != null && !newest.isNewerThan(a.recordOrNull) ? a.recordOrNull : null;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return null; // timed out or failed: the caller tries the next replica
+        }
+    }
+
+    private ReadResult resolve(String key, List<Node> replicas, Quorum<ReadAck> quorum) {
+        List<ReadAck> responses = quorum.responses();
+        int acks = responses.size();
+
+        if (acks < r) {
+            return ReadResult.fail(key, acks, r, replicas);
+        }
+
+        // lww
+        VersionedValue winner = resolveWinner(responses);
+
+        // read repair, off the request path. Not for chunked values: their bytes can't ride
+        // along with the record, anti-entropy streams them to the replicas that miss them
+        if (winner != null && !winner.chunked) {
+            for (ReadAck ra : responses) {
+                if (isStale(ra.recordOrNull, winner)) {
+                    Node peer = ra.peer;
+                    exec.runBackground(() -> repairOne(peer, key, winner));
+                }
+            }
+        }
+
+        // hide tombstones to public
+        if (winner == null || winner.tombstone) {
+            return ReadResult.notFound(key, acks, r, replicas, winner);
+        }
+        if (winner.chunked) {
+            return ReadResult.chunked(key, acks, r, replicas, winner, holders(responses, winner));
+        }
+        return ReadResult.found(key, acks, r, replicas, winner);
+    }
+
+    /** Replicas that answered with the winner's own version, i.e. that can serve its chunks. */
+    private static List<Node> holders(List<ReadAck> responses, VersionedValue winner) {
+        List<Node> out = new ArrayList<>(responses.size());
+        for (ReadAck ra : responses) {
+            if (winner.isSameVersion(ra.recordOrNull) || ra.digestOrNull != null && ra.digestOrNull.isSameVersion(winner)) {
+                out.add(ra.peer);
             }
-            return ReadResult.found(key, acks, r, replicas, winner);
         }
+        return out;
     }
 
-    private ReadAck readOne(Node peer, String key) throws Exception {
+    private CompletableFuture<ReadAck> readOne(Node peer, String key) {
         if (peer.id().equals(localNodeId)) {
-            var r = replicaLocal.getReplica(key);
-            if (r instanceof ReplicaKvService.GetReplicaResult.NotFound) {
-                return new ReadAck(peer, true, null); // ack=true, record=null
-            }
-            var f = (ReplicaKvService.GetReplicaResult.Found) r;
-            return new ReadAck(peer, true, f.record());
+            return exec.supply(() -> {
+                var r = replicaLocal.getReplica(key);
+                if (r instanceof ReplicaKvService.GetReplicaResult.NotFound) {
+                    return ReadAck.record(peer, true, null); // ack=true, record=null
+                }
+                var f = (ReplicaKvService.GetReplicaResult.Found) r;
+                return ReadAck.record(peer, true, f.record());
+            });
         }
 
-        PeerClient.ReplicaGetAck resp = peers.getReplica(peer, key, perRequestTimeout);
-        if (!resp.ack()) return new ReadAck(peer, false, null);
-        return new ReadAck(peer, true, resp.recordOrNull());
+        return peers.getReplicaAsync(peer, key, perRequestTimeout).thenApply(resp -> {
+            if (!resp.ack()) return ReadAck.record(peer, false, null);
+            observe(resp.recordOrNull());
+            return ReadAck.record(peer, true, resp.recordOrNull());
+        });
     }
 
-    private void repairOne(Node peer, String key, VersionedValue winner) throws Exception {
+    private CompletableFuture<ReadAck> digestOne(Node peer, String key) {
         if (peer.id().equals(localNodeId)) {
-            replicaLocal.putReplica(key, winner);
-        } else {
-            peers.putReplica(peer, key, winner, perRequestTimeout);
+            return exec.supply(() -> ReadAck.digest(peer, true, replicaLocal.getDigest(key)));
         }
+
+        return peers.getDigestAsync(peer, key, perRequestTimeout).thenApply(resp -> {
+            if (!resp.ack()) return ReadAck.digest(peer, false, null);
+            if (resp.digestOrNull() != null) clock.observe(resp.digestOrNull().ts());
+            return ReadAck.digest(peer, true, resp.digestOrNull());
+        });
+    }
+
+    /**
+     * Versions read from peers move the clock too: a client that reads a value through
+     * this node and writes it back gets a stamp after the one it read.
+     */
+    private void observe(VersionedValue record) {
+        if (record != null) clock.observe(record.ts);
+    }
+
+    private CompletableFuture<Map<String, ReadAck>> readMany(Node peer, List<String> keys) {
+        if (peer.id().equals(localNodeId)) {
+            return exec.supply(() -> {
+                Map<String, ReadAck> out = new HashMap<>();
+                for (String key : keys) {
+                    var r = replicaLocal.getReplica(key);
+                    VersionedValue rec = r instanceof ReplicaKvService.GetReplicaResult.Found f ? f.record() : null;
+                    out.put(key, ReadAck.record(peer, true, rec));
+                }
+                return out;
+            });
+        }
+
+        return peers.getReplicasAsync(peer, keys, perRequestTimeout).thenApply(resps -> {
+            Map<String, ReadAck> out = new HashMap<>();
+            resps.forEach((key, resp) -> {
+                if (resp.ack()) observe(resp.recordOrNull());
+                out.put(key, resp.ack()
+                        ? ReadAck.record(peer, true, resp.recordOrNull())
+                        : ReadAck.record(peer, false, null));
+            });
+            return out;
+        });
+    }
+
+    private CompletableFuture<?> repairOne(Node peer, String key, VersionedValue winner) {
+        if (peer.id().equals(localNodeId)) {
+            return exec.supply(() -> replicaLocal.putReplica(key, winner));
+        }
+        return peers.putReplicaAsync(peer, key, winner, perRequestTimeout);
     }
 
     private static VersionedValue resolveWinner(List<ReadAck> acks) {
@@ -148,7 +435,43 @@ public final class ReadCoordinatorService {
         return winner.isNewerThan(have);
     }
 
-    private record ReadAck(Node peer, boolean ack, VersionedValue recordOrNull) {}
+    /** One replica read of a single-key get. */
+    private static final class Attempt {
+        final Node peer;
+        final boolean data;
+        final long sentAt;
+        final CompletableFuture<ReadAck> read;
+        boolean hedged; // a later replica was asked in its place
+
+        Attempt(Node peer, boolean data, long sentAt, CompletableFuture<ReadAck> read) {
+            this.peer = peer;
+            this.data = data;
+            this.sentAt = sentAt;
+            this.read = read;
+        }
+
+        boolean succeeded() {
+            return read.isDone() && !read.isCompletedExceptionally() && read.join().ack;
+        }
+    }
+
+    /** A replica's answer: its record, or only its digest when {@code digestOnly}. */
+    private record ReadAck(Node peer, boolean ack, boolean digestOnly, VersionedValue recordOrNull,
+                           RecordDigest digestOrNull) {
+        static ReadAck record(Node peer, boolean ack, VersionedValue record) {
+            return new ReadAck(peer, ack, false, record, null);
+        }
+
+        static ReadAck digest(Node peer, boolean ack, RecordDigest digest) {
+            return new ReadAck(peer, ack, true, null, digest);
+        }
+
+        /** This replica answered with something older than {@code winner}, or nothing. */
+        boolean isStale(VersionedValue winner) {
+            if (!digestOnly) return ReadCoordinatorService.isStale(recordOrNull, winner);
+            return digestOrNull == null || !digestOrNull.isSameVersion(winner) && !digestOrNull.isNewerThan(winner);
+        }
+    }
 
     public record ReadResult(
             boolean ok,
@@ -158,20 +481,28 @@ public final class ReadCoordinatorService {
             int required,
             long ts,
             String nodeId,
-            byte[] payload,
-            boolean tombstone
+            Payload payload,
+            boolean tombstone,
+            boolean chunked,    // payload is then the ChunkManifest; the bytes come from holders
+            List<Node> holders  // chunked only: replicas holding the winner's chunks
     ) {
         static ReadResult fail(String key, int acks, int required, List<Node> replicas) {
-            return new ReadResult(false, false, key, acks, required, 0L, null, null, false);
+            return new ReadResult(false, false, key, acks, required, 0L, null, null, false, false, List.of());
         }
         static ReadResult notFound(String key, int acks, int required, List<Node> replicas, VersionedValue winner) {
             boolean tomb = winner != null && winner.tombstone;
             long ts = winner != null ? winner.ts : 0L;
             String nodeId = winner != null ? winner.nodeId : null;
-            return new ReadResult(true, false, key, acks, required, ts, nodeId, null, tomb);
+            return new ReadResult(true, false, key, acks, required, ts, nodeId, null, tomb, false, List.of());
         }
         static ReadResult found(String key, int acks, int required, List<Node> replicas, VersionedValue winner) {
-            return new ReadResult(true, true, key, acks, required, winner.ts, winner.nodeId, winner.payload, winner.tombstone);
+            return new ReadResult(true, true, key, acks, required, winner.ts, winner.nodeId, winner.payload,
+                    winner.tombstone, false, List.of());
+        }
+        static ReadResult chunked(String key, int acks, int required, List<Node> replicas, VersionedValue winner,
+                                  List<Node> holders) {
+            return new ReadResult(true, true, key, acks, required, winner.ts, winner.nodeId, winner.payload,
+                    false, true, List.copyOf(holders));
         }
     }
 }
\ No newline at end of file
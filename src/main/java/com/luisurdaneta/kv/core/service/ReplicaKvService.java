@@ -1,26 +1,99 @@
 package com.luisurdaneta.kv.core.service;
 
+import com.luisurdaneta.kv.core.model.ChunkManifest;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ports.ChunkStore;
+import com.luisurdaneta.kv.core.ports.Clock;
+import com.luisurdaneta.kv.core.ports.HintStore;
 import com.luisurdaneta.kv.core.ports.KvStore;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class ReplicaKvService {
     private final KvStore store;
+    private final HintStore hints;
+    private final ChunkStore chunks;
+    private final Clock clock;
 
-    public ReplicaKvService(KvStore store) {
+    /** {@code clock} observes the stamp of every record that comes in, applied or not. */
+    public ReplicaKvService(KvStore store, HintStore hints, ChunkStore chunks, Clock clock) {
         this.store = store;
+        this.hints = hints;
+        this.chunks = chunks;
+        this.clock = clock;
     }
 
     public PutReplicaResult putReplica(String key, VersionedValue incoming) throws Exception {
-        boolean applied = store.putIfNewer(key, incoming);
+        return putReplica(key, incoming, null);
+    }
+
+    /** {@code durability == null}: the store's default. */
+    public PutReplicaResult putReplica(String key, VersionedValue incoming, Durability durability) throws Exception {
+        clock.observe(incoming.ts);
+        boolean applied = !missingChunks(key, incoming) && store.putIfNewer(key, incoming, durability);
         return new PutReplicaResult(applied, incoming.ts, incoming.nodeId, incoming.tombstone);
     }
 
+    /** Whether putReplica of {@code incoming} would be a no-op: the stored version already wins. */
+    public boolean isStale(String key, VersionedValue incoming) throws Exception {
+        return store.isStale(key, incoming);
+    }
+
+    /** putReplica for many records, committed to the store together. */
+    public List<PutReplicaResult> putReplicas(List<String> keys, List<VersionedValue> incoming,
+                                              Durability durability) throws Exception {
+        boolean[] ready = new boolean[keys.size()];
+        List<String> ks = new ArrayList<>(keys.size());
+        List<VersionedValue> vs = new ArrayList<>(incoming.size());
+        for (int i = 0; i < ready.length; i++) {
+            clock.observe(incoming.get(i).ts);
+            ready[i] = !missingChunks(keys.get(i), incoming.get(i));
+            if (ready[i]) {
+                ks.add(keys.get(i));
+                vs.add(incoming.get(i));
+            }
+        }
+        boolean[] stored = store.putAllIfNewer(ks, vs, durability);
+
+        List<PutReplicaResult> out = new ArrayList<>(ready.length);
+        for (int i = 0, j = 0; i < ready.length; i++) {
+            VersionedValue vv = incoming.get(i);
+            out.add(new PutReplicaResult(ready[i] && stored[j++], vv.ts, vv.nodeId, vv.tombstone));
+        }
+        return out;
+    }
+
+    /**
+     * A chunked record only goes in once all its chunks are here (they are written in order,
+     * so the last one stands for all); it arrives without them on the plain record paths.
+     */
+    private boolean missingChunks(String key, VersionedValue vv) throws Exception {
+        if (!vv.chunked) return false;
+        ChunkManifest m = ChunkManifest.of(vv);
+        return m.chunks() > 0 && !chunks.hasChunk(key, vv, m.chunks() - 1);
+    }
+
+    /** Holds a write for {@code ownerId} until the hinted handoff replayer can deliver it. */
+    public PutReplicaResult storeHint(String ownerId, String key, VersionedValue incoming) throws Exception {
+        clock.observe(incoming.ts);
+        hints.putHint(ownerId, key, incoming);
+        return new PutReplicaResult(true, incoming.ts, incoming.nodeId, incoming.tombstone);
+    }
+
     public GetReplicaResult getReplica(String key) throws Exception {
         VersionedValue vv = store.get(key);
         if (vv == null) return GetReplicaResult.notFound();
         return GetReplicaResult.found(vv);
     }
 
+    /** The stored record's version, null if absent: a digest read. */
+    public RecordDigest getDigest(String key) throws Exception {
+        return store.digest(key);
+    }
+
     public record PutReplicaResult(boolean applied, long ts, String nodeId, boolean tombstone) {}
 
     public sealed interface GetReplicaResult permits GetReplicaResult.Found, GetReplicaResult.NotFound {
@@ -1,23 +1,29 @@
 package com.luisurdaneta.kv.core.service;
 
 
+import com.luisurdaneta.kv.core.cluster.Liveness;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.Payload;
 import com.luisurdaneta.kv.core.model.VersionedValue;
 import com.luisurdaneta.kv.core.ports.Clock;
 import com.luisurdaneta.kv.core.ports.PeerClient;
 import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.ring.RingProvider;
 import com.luisurdaneta.kv.http.Node;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public final class WriteCoordinatorService {
     private final String localNodeId;
-    private final ConsistentHashRing ring;
+    private final RingProvider rings;
     private final ReplicaKvService replicaLocal;
     private final PeerClient peers;
     private final Clock clock;
+    private final CoordinatorExecutor exec;
+    private final Liveness liveness;
+    private final boolean sloppyQuorum;
 
     private final int rf;       // replication factor
     private final int w;
@@ -26,88 +32,248 @@ public final class WriteCoordinatorService {
 
     public WriteCoordinatorService(
             String localNodeId,
-            ConsistentHashRing ring,
+            RingProvider rings,
             ReplicaKvService replicaLocal,
             PeerClient peers,
             Clock clock,
+            CoordinatorExecutor exec,
+            Liveness liveness,
+            boolean sloppyQuorum,
             int rf,
             int w,
             Duration perRequestTimeout,
             Duration overallTimeout
     ) {
         this.localNodeId = localNodeId;
-        this.ring = ring;
+        this.rings = rings;
         this.replicaLocal = replicaLocal;
         this.peers = peers;
         this.clock = clock;
+        this.exec = exec;
+        this.liveness = liveness;
+        this.sloppyQuorum = sloppyQuorum;
         this.rf = rf;
         this.w = w;
         this.perRequestTimeout = perRequestTimeout;
         this.overallTimeout = overallTimeout;
     }
 
-    public WriteResult put(String key, byte[] payload) throws Exception {
-        VersionedValue vv = new VersionedValue(clock.nowMillis(), localNodeId, false, payload);
-        return writeQuorum(key, vv);
+    public WriteResult put(String key, Payload payload) throws Exception {
+        return put(key, payload, null);
+    }
+
+    /** {@code durability} is applied on every replica; null leaves it to each replica's default. */
+    public WriteResult put(String key, Payload payload, Durability durability) throws Exception {
+        VersionedValue vv = new VersionedValue(clock.nextStamp(), localNodeId, false, payload);
+        return writeQuorum(key, vv, durability);
     }
 
     public WriteResult delete(String key) throws Exception {
-        VersionedValue vv = new VersionedValue(clock.nowMillis(), localNodeId, true, new byte[0]);
-        return writeQuorum(key, vv);
+        return delete(key, null);
     }
 
-    private WriteResult writeQuorum(String key, VersionedValue vv) throws Exception {
+    public WriteResult delete(String key, Durability durability) throws Exception {
+        VersionedValue vv = new VersionedValue(clock.nextStamp(), localNodeId, true, Payload.EMPTY);
+        return writeQuorum(key, vv, durability);
+    }
+
+    private WriteResult writeQuorum(String key, VersionedValue vv, Durability durability) throws Exception {
+        ConsistentHashRing ring = rings.current(); // one ring per request
         List<Node> replicas = ring.replicasForKey(key, rf);
+        List<Target> targets = targets(ring, key, replicas, vv);
 
-        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
-            CompletionService<Ack> cs = new ExecutorCompletionService<>(exec);
-            List<Future<Ack>> futures = new ArrayList<>(replicas.size());
+        Quorum<Ack> quorum = new Quorum<>(w, targets.size(), Ack::ok);
+        List<CompletableFuture<Ack>> futures = new ArrayList<>(targets.size());
 
-            for (Node peer : replicas) {
-                futures.add(cs.submit(() -> sendOne(peer, key, vv)));
-            }
+        for (Target t : targets) {
+            CompletableFuture<Ack> f = sendOne(t, key, vv, durability);
+            futures.add(f);
+            quorum.track(f);
+        }
 
-            int acks = 0;
-            long deadline = System.nanoTime() + overallTimeout.toNanos();
+        try {
+            quorum.await(overallTimeout);
+        } finally {
+            // quorum decided — remaining replicas still get the write, in the background
+            exec.detach(futures);
+        }
 
-            for (int i = 0; i < replicas.size(); i++) {
-                long remaining = deadline - System.nanoTime();
-                if (remaining <= 0) break;
+        return result(key, vv, replicas, quorum);
+    }
 
-                Future<Ack> f = cs.poll(remaining, TimeUnit.NANOSECONDS);
-                if (f == null) break;
+    /**
+     * Quorum write of many keys. Keys are grouped by replica so each peer gets one
+     * batched request; W is still checked per key. Results keep the order of {@code items}.
+     */
+    public List<WriteResult> putMany(Map<String, Payload> items) throws Exception {
+        return putMany(items, null);
+    }
 
-                Ack ack;
-                try {
-                    ack = f.get(); // task already completed
-                } catch (ExecutionException ee) {
-                    // Treat as failed ack
-                    continue;
-                }
+    public List<WriteResult> putMany(Map<String, Payload> items, Durability durability) throws Exception {
+        ConsistentHashRing ring = rings.current();
+        long ts = clock.nextStamp();
 
-                if (ack.ok) acks++;
+        Map<String, VersionedValue> records = new LinkedHashMap<>();
+        Map<String, List<Node>> replicasByKey = new HashMap<>();
+        Map<String, Quorum<Ack>> quorums = new HashMap<>();
+        Map<Node, Map<String, VersionedValue>> recordsByPeer = new LinkedHashMap<>();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
 
-                if (acks >= w) {
-                    // quorum satisfied — cancel stragglers
-                    for (Future<Ack> fut : futures) fut.cancel(true);
-                    return WriteResult.success(key, vv.ts, vv.nodeId, vv.tombstone, acks, w, replicas);
+        items.forEach((key, payload) -> {
+            VersionedValue vv = new VersionedValue(ts, localNodeId, false, payload);
+            List<Node> replicas = ring.replicasForKey(key, rf);
+            List<Target> targets = targets(ring, key, replicas, vv);
+            Quorum<Ack> quorum = new Quorum<>(w, targets.size(), Ack::ok);
+            records.put(key, vv);
+            replicasByKey.put(key, replicas);
+            quorums.put(key, quorum);
+            for (Target t : targets) {
+                if (t.hintFor() == null) {
+                    recordsByPeer.computeIfAbsent(t.node(), p -> new LinkedHashMap<>()).put(key, vv);
+                } else {
+                    // degraded path, not worth batching
+                    CompletableFuture<Ack> f = sendOne(t, key, vv, durability);
+                    futures.add(f);
+                    quorum.track(f);
                 }
             }
+        });
 
-            for (Future<Ack> fut : futures) fut.cancel(true);
-            return WriteResult.fail(key, vv.ts, vv.nodeId, vv.tombstone, acks, w, replicas);
+        recordsByPeer.forEach((peer, peerRecords) -> {
+            CompletableFuture<Map<String, Ack>> f = sendMany(peer, peerRecords, durability);
+            futures.add(f);
+            for (String key : peerRecords.keySet()) {
+                quorums.get(key).track(f.thenApply(m -> m.get(key)));
+            }
+        });
+
+        long deadline = System.nanoTime() + overallTimeout.toNanos();
+        try {
+            for (Quorum<Ack> q : quorums.values()) {
+                q.await(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+            }
+        } finally {
+            exec.detach(futures);
+        }
+
+        List<WriteResult> out = new ArrayList<>(records.size());
+        records.forEach((key, vv) -> out.add(result(key, vv, replicasByKey.get(key), quorums.get(key))));
+        return out;
+    }
+
+    private WriteResult result(String key, VersionedValue vv, List<Node> replicas, Quorum<Ack> quorum) {
+        int acks = quorum.acks();
+        if (quorum.reached()) {
+            return WriteResult.success(key, vv.ts, vv.nodeId, vv.tombstone, acks, w, replicas);
         }
+        return WriteResult.fail(key, vv.ts, vv.nodeId, vv.tombstone, acks, w, replicas);
     }
 
-    private Ack sendOne(Node peer, String key, VersionedValue vv) throws Exception {
+    /**
+     * Where to send a write. Replicas believed up are used as-is. With sloppy quorum
+     * each replica believed down is replaced by the next healthy node on the ring
+     * past the preference list, carrying a hint that names the real owner; that
+     * write counts toward W. When no such node exists, this node keeps a hint
+     * (not counted) and the owner is only tried directly if W can't be met without it.
+     */
+    private List<Target> targets(ConsistentHashRing ring, String key, List<Node> replicas, VersionedValue vv) {
+        List<Target> out = new ArrayList<>(replicas.size());
+        List<Node> down = null;
+        for (Node n : replicas) {
+            if (liveness.isUp(n.id())) {
+                out.add(new Target(n, null));
+            } else {
+                if (down == null) down = new ArrayList<>(2);
+                down.add(n);
+            }
+        }
+        if (down == null) return out;
+
+        if (!sloppyQuorum) {
+            for (Node n : Liveness.select(replicas, liveness, w)) {
+                if (!liveness.isUp(n.id())) out.add(new Target(n, null));
+            }
+            return out;
+        }
+
+        Iterator<Node> fallbacks = ring.replicasForKey(key, Integer.MAX_VALUE).iterator();
+        for (int i = 0; i < replicas.size() && fallbacks.hasNext(); i++) fallbacks.next();
+
+        List<Node> unplaced = new ArrayList<>(down.size());
+        for (Node owner : down) {
+            Node fallback = null;
+            while (fallback == null && fallbacks.hasNext()) {
+                Node n = fallbacks.next();
+                if (liveness.isUp(n.id())) fallback = n;
+            }
+            if (fallback != null) out.add(new Target(fallback, owner.id()));
+            else unplaced.add(owner);
+        }
+
+        boolean tryDirectly = out.size() < w;
+        for (Node owner : unplaced) {
+            storeLocalHint(owner.id(), key, vv).join();
+            if (tryDirectly) out.add(new Target(owner, null));
+        }
+        return out;
+    }
+
+    private CompletableFuture<Ack> sendOne(Target t, String key, VersionedValue vv, Durability durability) {
+        Node peer = t.node();
         if (peer.id().equals(localNodeId)) {
-            replicaLocal.putReplica(key, vv);
-            return new Ack(peer.id(), true);
+            return exec.supply(() -> {
+                if (t.hintFor() == null) replicaLocal.putReplica(key, vv, durability);
+                else replicaLocal.storeHint(t.hintFor(), key, vv);
+                return new Ack(peer.id(), true);
+            });
         }
-        PeerClient.ReplicaPutAck r = peers.putReplica(peer, key, vv, perRequestTimeout);
-        return new Ack(peer.id(), r.ok());
+
+        CompletableFuture<PeerClient.ReplicaPutAck> f = t.hintFor() == null
+                ? peers.putReplicaAsync(peer, key, vv, durability, perRequestTimeout)
+                : peers.putHintAsync(peer, key, vv, t.hintFor(), perRequestTimeout);
+
+        return f.handle((r, err) -> err == null && r.ok()).thenCompose(ok -> {
+            if (ok || !sloppyQuorum || t.hintFor() != null) return CompletableFuture.completedFuture(new Ack(peer.id(), ok));
+            // owner missed a write it was supposed to get: keep it for handoff before answering
+            return storeLocalHint(peer.id(), key, vv).thenApply(stored -> new Ack(peer.id(), false));
+        });
     }
 
+    /**
+     * Holds a write for {@code ownerId} in the local hint store. Part of the write, not
+     * background work: it runs whatever the background budget, and the caller waits for
+     * it. Completes with false if the hint couldn't be stored.
+     */
+    private CompletableFuture<Boolean> storeLocalHint(String ownerId, String key, VersionedValue vv) {
+        return exec.supply(() -> replicaLocal.storeHint(ownerId, key, vv)).handle((r, err) -> err == null);
+    }
+
+    private CompletableFuture<Map<String, Ack>> sendMany(Node peer, Map<String, VersionedValue> records,
+                                                         Durability durability) {
+        if (peer.id().equals(localNodeId)) {
+            return exec.supply(() -> {
+                replicaLocal.putReplicas(new ArrayList<>(records.keySet()), new ArrayList<>(records.values()), durability);
+                Map<String, Ack> out = new HashMap<>();
+                for (String key : records.keySet()) out.put(key, new Ack(peer.id(), true));
+                return out;
+            });
+        }
+        return peers.putReplicasAsync(peer, records, durability, perRequestTimeout).handle((acks, err) -> {
+            Map<String, Ack> out = new HashMap<>();
+            List<CompletableFuture<Boolean>> hinted = new ArrayList<>();
+            records.forEach((key, vv) -> {
+                PeerClient.ReplicaPutAck r = acks == null ? null : acks.get(key);
+                boolean ok = r != null && r.ok();
+                if (!ok && sloppyQuorum) hinted.add(storeLocalHint(peer.id(), key, vv));
+                out.put(key, new Ack(peer.id(), ok));
+            });
+            return CompletableFuture.allOf(hinted.toArray(CompletableFuture[]::new)).thenApply(v -> out);
+        }).thenCompose(f -> f);
+    }
+
+    /** A write destination; {@code hintFor} is the intended owner when {@code node} only holds a hint. */
+    private record Target(Node node, String hintFor) {}
+
     private record Ack(String peerId, boolean ok) {}
 
     public record WriteResult(
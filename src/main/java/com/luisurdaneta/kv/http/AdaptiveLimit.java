@@ -0,0 +1,96 @@
+package com.luisurdaneta.kv.http;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cap on requests in flight that adapts to how fast they complete (AIMD).
+ *
+ * A request done within the latency target grows the limit by 1/limit, so one limit's
+ * worth of them grows it by one. A request that runs past the target or fails in the
+ * handler itself (an exception or a 500) cuts it by {@code backoff}: past the target,
+ * requests are queueing somewhere (handler threads, RocksDB, peers) and more of them
+ * at once only lengthens the queue. At most one cut per target's worth of time, so
+ * requests that were slow together count once. The limit only grows while at least
+ * half of it is in use; an idle node keeps the limit it found instead of drifting up
+ * to the max.
+ */
+public final class AdaptiveLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final double backoff;
+
+    private double limit;
+    private int inFlight;
+    private long lastCutAt;
+    private long admitted;
+    private long rejected;
+    private long cuts;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, Duration target, double backoff) {
+        if (minLimit <= 0 || minLimit > maxLimit) throw new IllegalArgumentException("need 0 < minLimit <= maxLimit");
+        if (backoff <= 0 || backoff >= 1) throw new IllegalArgumentException("backoff must be in (0, 1)");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = target.toNanos();
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastCutAt = System.nanoTime() - targetNanos;
+    }
+
+    /** Takes a slot if fewer than the limit are in flight; give it back with {@link #release}. */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        admitted++;
+        return true;
+    }
+
+    /**
+     * Gives back a slot. {@code rttNanos} is -1 for a request whose time says nothing
+     * about load (a streamed body); only its failure counts. True if this cut the limit.
+     */
+    public synchronized boolean release(long rttNanos, boolean failed) {
+        int wasInFlight = inFlight--;
+        if (failed || rttNanos > targetNanos) return cut();
+        if (rttNanos >= 0 && wasInFlight >= limit / 2) limit = Math.min(maxLimit, limit + 1 / limit);
+        return false;
+    }
+
+    /** Cuts the limit as if a request had run past the target. True if it did. */
+    public synchronized boolean backOff() {
+        return cut();
+    }
+
+    /** True while at least {@code fraction} of the limit is in use. */
+    public synchronized boolean isBusy(double fraction) {
+        return inFlight >= limit * fraction;
+    }
+
+    private boolean cut() {
+        long now = System.nanoTime();
+        if (now - lastCutAt < targetNanos) return false;
+        lastCutAt = now;
+        limit = Math.max(minLimit, limit * backoff);
+        cuts++;
+        return true;
+    }
+
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("limit", (int) limit);
+        out.put("minLimit", minLimit);
+        out.put("maxLimit", maxLimit);
+        out.put("targetMicros", targetNanos / 1_000);
+        out.put("inFlight", inFlight);
+        out.put("admitted", admitted);
+        out.put("rejected", rejected);
+        out.put("cuts", cuts);
+        return out;
+    }
+}
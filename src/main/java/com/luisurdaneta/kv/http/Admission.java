@@ -0,0 +1,112 @@
+package com.luisurdaneta.kv.http;
+
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load shedding in front of the handlers.
+ *
+ * Client requests (/kv) and replica requests (/internal/replica) each have an
+ * {@link AdaptiveLimit}, so neither can take the other's share. A request over its
+ * limit is turned away before any work is done: 429 for a client, 503 for a replica
+ * request (its coordinator counts it as a failed replica and moves on), both with
+ * Retry-After.
+ *
+ * Replica requests come first. Each is part of a request some coordinator already
+ * accepted, and shedding it wastes the work done so far; a client request turned away
+ * costs nothing yet. So while replica requests fill most of their limit, new client
+ * requests get 503, and whenever replica requests cut their limit, so do clients.
+ */
+public final class Admission {
+    /**
+     * Exchange attribute a handler sets when its time says nothing about load: it streamed
+     * a body, or some key missed its quorum (a 503 counts as untimed without it).
+     */
+    public static final String UNTIMED = "kv.admission.untimed";
+
+    private static final double REPLICA_BUSY = 0.8;
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveLimit client;
+    private final AdaptiveLimit replica;
+    private final AtomicLong clientsShedForReplicas = new AtomicLong();
+
+    public Admission(AdaptiveLimit client, AdaptiveLimit replica) {
+        this.client = client;
+        this.replica = replica;
+    }
+
+    /** For client contexts. */
+    public Filter clientFilter() {
+        return new Gate(false, true);
+    }
+
+    /** For replica contexts; {@code timed} false where every request streams a body. */
+    public Filter replicaFilter(boolean timed) {
+        return new Gate(true, timed);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Map<String, Object> c = client.stats();
+        c.put("shedForReplicas", clientsShedForReplicas.get());
+        out.put("client", c);
+        out.put("replica", replica.stats());
+        return out;
+    }
+
+    private final class Gate extends Filter {
+        private final boolean forReplicas;
+        private final boolean timed;
+
+        Gate(boolean forReplicas, boolean timed) {
+            this.forReplicas = forReplicas;
+            this.timed = timed;
+        }
+
+        @Override
+        public void doFilter(HttpExchange ex, Chain chain) throws IOException {
+            AdaptiveLimit limit = forReplicas ? replica : client;
+            if (!forReplicas && replica.isBusy(REPLICA_BUSY)) {
+                clientsShedForReplicas.incrementAndGet();
+                shed(ex, 503, "busy_with_replicas");
+                return;
+            }
+            if (!limit.tryAcquire()) {
+                shed(ex, forReplicas ? 503 : 429, "overloaded");
+                return;
+            }
+
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                chain.doFilter(ex);
+                // only the handler's own failure is ours: a 503 for a missed quorum or an
+                // unavailable value is about the replicas, which their own limits account for
+                failed = ex.getResponseCode() == 500;
+            } finally {
+                // nor is its time: a missed quorum waited out the replica timeout, and counting
+                // it as latency would cut the client limit on every peer outage
+                boolean untimed = !timed || ex.getAttribute(UNTIMED) != null || ex.getResponseCode() == 503;
+                boolean cut = limit.release(untimed ? -1 : System.nanoTime() - start, failed);
+                if (cut && forReplicas) client.backOff();
+            }
+        }
+
+        @Override
+        public String description() {
+            return forReplicas ? "replica admission" : "client admission";
+        }
+    }
+
+    private static void shed(HttpExchange ex, int status, String error) throws IOException {
+        ex.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+        HttpJson.json(ex, status, Map.of("ok", false, "error", error));
+    }
+}
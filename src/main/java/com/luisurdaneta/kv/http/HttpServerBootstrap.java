@@ -9,8 +9,16 @@ public final class HttpServerBootstrap {
     private HttpServerBootstrap() {}
 
     public static HttpServer start(NodeContext ctx) throws IOException {
-        HttpServer server = HttpServer.create(new InetSocketAddress(ctx.config().port()), 0);
+        NodeConfig config = ctx.config();
+        // responses are mostly small and connections kept alive: don't let Nagle hold them back
+        // (read once, when the first server is created)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(config.port()), config.httpBacklog());
         Routes.registerAll(server, ctx);
+        server.setExecutor(HttpWorkers.create(HttpWorkers.Mode.parse(config.httpWorkers()), config.httpMaxWorkers()));
         server.start();
         return server;
     }
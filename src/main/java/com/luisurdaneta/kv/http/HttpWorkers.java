@@ -0,0 +1,97 @@
+package com.luisurdaneta.kv.http;
+
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the HTTP server's handlers.
+ *
+ * com.sun.net.httpserver accepts, reads request headers and keeps idle keep-alive
+ * connections on a single NIO selector thread, then hands each exchange to the
+ * server's executor. Without one, handlers run on that selector thread: a handler
+ * blocked on a quorum wait stalls every other connection of the node. Our handlers
+ * block freely (quorum waits, RocksDB, streamed bodies), so the default is a virtual
+ * thread per exchange.
+ */
+public final class HttpWorkers {
+    private HttpWorkers() {}
+
+    public enum Mode {
+        /**
+         * A virtual thread per exchange; at most {@code maxWorkers} in data handlers at once
+         * (0: no cap), see {@link #cap}.
+         */
+        VIRTUAL,
+        /** {@code maxWorkers} platform threads; exchanges beyond them queue. */
+        FIXED,
+        /** Handlers on the selector thread, one exchange at a time (the JDK default). */
+        DISPATCHER;
+
+        public static Mode parse(String s) {
+            return valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /** The executor to give the server; null for {@link Mode#DISPATCHER}. */
+    public static Executor create(Mode mode, int maxWorkers) {
+        return switch (mode) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+            case FIXED -> {
+                if (maxWorkers <= 0) throw new IllegalArgumentException("fixed HTTP workers need maxWorkers > 0");
+                AtomicInteger n = new AtomicInteger();
+                yield Executors.newFixedThreadPool(maxWorkers, r -> {
+                    Thread t = new Thread(r, "http-" + n.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            case DISPATCHER -> null;
+        };
+    }
+
+    /**
+     * The filter that caps running handlers on the data contexts (/kv, /internal/replica);
+     * null where there is no cap. Over the cap an exchange gets 503 at once. The cap can't
+     * sit in the executor: waiting there for a permit holds the selector thread, and with
+     * it heartbeats, gossip and every other connection of the node.
+     */
+    public static Filter cap(Mode mode, int maxWorkers) {
+        return mode == Mode.VIRTUAL && maxWorkers > 0 ? new Cap(new Semaphore(maxWorkers)) : null;
+    }
+
+    private static final class Cap extends Filter {
+        private final Semaphore permits;
+
+        Cap(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void doFilter(HttpExchange ex, Chain chain) throws IOException {
+            if (!permits.tryAcquire()) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                HttpJson.json(ex, 503, Map.of("ok", false, "error", "too_many_workers"));
+                return;
+            }
+            try {
+                chain.doFilter(ex);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public String description() {
+            return "http worker cap";
+        }
+    }
+}
@@ -1,20 +1,85 @@
 package com.luisurdaneta.kv.http;
 
+import com.luisurdaneta.kv.core.model.Durability;
+
 import static com.luisurdaneta.kv.util.EnvUtils.env;
 import static com.luisurdaneta.kv.util.EnvUtils.intEnv;
 
 public record NodeConfig(
         int port,
+        String httpWorkers,
+        int httpMaxWorkers,
+        int httpBacklog,
+        long maxBodyBytes,
+        boolean admissionControl,
+        int clientMaxConcurrency,
+        int clientLatencyTargetMs,
+        int replicaMaxConcurrency,
+        int replicaLatencyTargetMs,
         String podName,
         String namespace,
         String headlessService,
         int replicas,
         String nodeId,
-        String dbPath
+        String dbPath,
+        String rocksDbProfile,
+        int blockCacheMb,
+        boolean hyperClockCache,
+        int readCacheMb,
+        int coordinatorMaxBackground,
+        boolean replicaBinaryWire,
+        int peerBatchWindowMicros,
+        int peerBatchMax,
+        int peerMaxInFlight,
+        int breakerWindowMs,
+        int breakerMinCalls,
+        int breakerFailurePercent,
+        int breakerSlowCallMs,
+        int breakerSlowCallPercent,
+        int breakerOpenMs,
+        int groupCommitWindowMicros,
+        int groupCommitMax,
+        Durability durability,
+        int groupSyncIntervalMicros,
+        long groupSyncBytes,
+        long streamThresholdBytes,
+        int streamTimeoutMs,
+        String selfBaseUrl,
+        int gossipIntervalMs,
+        int heartbeatIntervalMs,
+        double phiThreshold,
+        boolean speculativeRetry,
+        int hedgeMinDelayMicros,
+        boolean hybridClock,
+        int clockMaxOffsetMs,
+        boolean sloppyQuorum,
+        int hintReplayIntervalMs,
+        int hintReplayBatch,
+        int hintReplayRate,
+        long hintTtlMs,
+        int antiEntropyIntervalMs,
+        int merkleDepth
 ) {
     public static NodeConfig fromEnv() {
         int port = intEnv("PORT", 8080);
 
+        // HTTP handlers on "virtual" threads (default), a "fixed" pool or the single "dispatcher"
+        // thread; max workers caps concurrent handlers (for virtual: data handlers only, 503 over
+        // the cap; 0: no cap), backlog is the TCP accept queue
+        String httpWorkers = env("HTTP_WORKERS", "virtual");
+        int httpMaxWorkers = intEnv("HTTP_MAX_WORKERS", 4096);
+        int httpBacklog = intEnv("HTTP_BACKLOG", 1024);
+        // largest request body read whole into memory (413 beyond it); streamed values don't count
+        long maxBodyBytes = Long.parseLong(env("MAX_BODY_BYTES", "67108864"));
+
+        // adaptive limits on client and replica requests in flight, each between a small floor
+        // and its max; a request past its latency target shrinks the limit, requests over it get 429/503
+        boolean admissionControl = !"false".equalsIgnoreCase(env("ADMISSION_CONTROL", "true"));
+        int clientMaxConcurrency = intEnv("CLIENT_MAX_CONCURRENCY", 1024);
+        int clientLatencyTargetMs = intEnv("CLIENT_LATENCY_TARGET_MS", 250);
+        int replicaMaxConcurrency = intEnv("REPLICA_MAX_CONCURRENCY", 2048);
+        int replicaLatencyTargetMs = intEnv("REPLICA_LATENCY_TARGET_MS", 100);
+
         String podName = env("POD_NAME", "local");
         String namespace = env("POD_NAMESPACE", "default");
         String headless = env("HEADLESS_SERVICE", "kv-headless");
@@ -23,6 +88,91 @@ public record NodeConfig(
         String nodeId = podName;
         String dbPath = env("DB_PATH", "./data/" + nodeId);
 
-        return new NodeConfig(port, podName, namespace, headless, replicas, nodeId, dbPath);
+        // RocksDB engine: "balanced", "point-lookup" or "write-heavy", plus a shared block cache cap
+        String rocksDbProfile = env("ROCKSDB_PROFILE", "balanced");
+        int blockCacheMb = intEnv("ROCKSDB_BLOCK_CACHE_MB", 256);
+        boolean hyperClockCache = "hyperclock".equalsIgnoreCase(env("ROCKSDB_BLOCK_CACHE", "lru"));
+
+        // decoded hot records kept on heap in front of RocksDB (0 disables)
+        int readCacheMb = intEnv("READ_CACHE_MB", 64);
+
+        // cap on detached straggler/read-repair tasks across all coordinators
+        int coordinatorMaxBackground = intEnv("COORDINATOR_MAX_BACKGROUND", 1024);
+
+        // "binary" (default) or "json" for replica traffic; json is handy when debugging with curl
+        boolean replicaBinaryWire = !"json".equalsIgnoreCase(env("REPLICA_WIRE", "binary"));
+
+        // per-peer coalescing of replica ops into /internal/replica/batch; window 0 turns it off
+        int peerBatchWindowMicros = intEnv("PEER_BATCH_WINDOW_MICROS", 200);
+        int peerBatchMax = intEnv("PEER_BATCH_MAX", 64);
+
+        // replica requests in flight per peer, and so HTTP/1.1 connections to it; the rest wait for a slot
+        int peerMaxInFlight = intEnv("PEER_MAX_IN_FLIGHT", 128);
+
+        // per-peer circuit breakers: a peer failing, or slower than the slow-call threshold, on
+        // that share of its calls over the window gets no requests for the open time (window 0 disables)
+        int breakerWindowMs = intEnv("BREAKER_WINDOW_MS", 10000);
+        int breakerMinCalls = intEnv("BREAKER_MIN_CALLS", 20);
+        int breakerFailurePercent = intEnv("BREAKER_FAILURE_PERCENT", 50);
+        int breakerSlowCallMs = intEnv("BREAKER_SLOW_CALL_MS", 250);
+        int breakerSlowCallPercent = intEnv("BREAKER_SLOW_CALL_PERCENT", 80);
+        int breakerOpenMs = intEnv("BREAKER_OPEN_MS", 5000);
+
+        // group commit: concurrent replica writes share one multiGet + WriteBatch (0 disables)
+        int groupCommitWindowMicros = intEnv("GROUP_COMMIT_WINDOW_MICROS", 100);
+        int groupCommitMax = intEnv("GROUP_COMMIT_MAX", 256);
+
+        // durability of replica writes that don't ask for one: no-wal, async, group-sync, sync
+        Durability durability = Durability.parse(env("DURABILITY", "async"));
+        int groupSyncIntervalMicros = intEnv("GROUP_SYNC_INTERVAL_MICROS", 1000);
+        long groupSyncBytes = Long.parseLong(env("GROUP_SYNC_BYTES", "1048576"));
+
+        // values from this size on are stored in chunks and streamed end to end (0 disables);
+        // the timeout covers one whole replica transfer
+        long streamThresholdBytes = Long.parseLong(env("STREAM_THRESHOLD_BYTES", "1048576"));
+        int streamTimeoutMs = intEnv("STREAM_TIMEOUT_MS", 60000);
+
+        // how other nodes reach us; defaults to the StatefulSet DNS name
+        String selfBaseUrl = env("SELF_URL",
+                "http://" + podName + "." + headless + "." + namespace + ".svc.cluster.local:" + port);
+        int gossipIntervalMs = intEnv("GOSSIP_INTERVAL_MS", 1000);
+
+        // failure detector: coordinators skip replicas whose phi reaches the threshold
+        int heartbeatIntervalMs = intEnv("HEARTBEAT_INTERVAL_MS", 500);
+        double phiThreshold = Double.parseDouble(env("PHI_THRESHOLD", "8"));
+
+        // reads go to the R fastest replicas; one that fails or runs past its own p95 (never
+        // less than the floor) gets a hedged request to the next replica
+        boolean speculativeRetry = !"false".equalsIgnoreCase(env("SPECULATIVE_RETRY", "true"));
+        int hedgeMinDelayMicros = intEnv("HEDGE_MIN_DELAY_MICROS", 1000);
+
+        // write versions: "hybrid" logical clock stamps (default) or plain "wall" clock millis;
+        // the hybrid clock doesn't follow stamps further ahead of its wall clock than the max offset
+        boolean hybridClock = !"wall".equalsIgnoreCase(env("VERSION_CLOCK", "hybrid"));
+        int clockMaxOffsetMs = intEnv("CLOCK_MAX_OFFSET_MS", 60000);
+
+        // hinted handoff: writes for down replicas go to fallback nodes and are replayed later
+        boolean sloppyQuorum = !"false".equalsIgnoreCase(env("SLOPPY_QUORUM", "true"));
+        int hintReplayIntervalMs = intEnv("HINT_REPLAY_INTERVAL_MS", 1000);
+        int hintReplayBatch = intEnv("HINT_REPLAY_BATCH", 128);
+        int hintReplayRate = intEnv("HINT_REPLAY_RATE", 2000); // hints per second
+        long hintTtlMs = Long.parseLong(env("HINT_TTL_MS", "10800000")); // 3h
+
+        // anti-entropy: periodic Merkle-tree comparison with one peer per round (0 disables)
+        int antiEntropyIntervalMs = intEnv("ANTI_ENTROPY_INTERVAL_MS", 60000);
+        int merkleDepth = intEnv("MERKLE_DEPTH", 6); // 2^depth leaves per range
+
+        return new NodeConfig(port, httpWorkers, httpMaxWorkers, httpBacklog, maxBodyBytes,
+                admissionControl, clientMaxConcurrency, clientLatencyTargetMs, replicaMaxConcurrency, replicaLatencyTargetMs,
+                podName, namespace, headless, replicas, nodeId, dbPath,
+                rocksDbProfile, blockCacheMb, hyperClockCache, readCacheMb,
+                coordinatorMaxBackground, replicaBinaryWire, peerBatchWindowMicros, peerBatchMax, peerMaxInFlight,
+                breakerWindowMs, breakerMinCalls, breakerFailurePercent, breakerSlowCallMs, breakerSlowCallPercent, breakerOpenMs,
+                groupCommitWindowMicros, groupCommitMax, durability, groupSyncIntervalMicros, groupSyncBytes,
+                streamThresholdBytes, streamTimeoutMs,
+                selfBaseUrl, gossipIntervalMs, heartbeatIntervalMs, phiThreshold,
+                speculativeRetry, hedgeMinDelayMicros, hybridClock, clockMaxOffsetMs,
+                sloppyQuorum, hintReplayIntervalMs, hintReplayBatch, hintReplayRate, hintTtlMs,
+                antiEntropyIntervalMs, merkleDepth);
     }
 }
\ No newline at end of file
@@ -1,19 +1,33 @@
 package com.luisurdaneta.kv.http;
 
+import com.luisurdaneta.kv.adapters.peer.PeerBreakers;
+import com.luisurdaneta.kv.adapters.storage.CachingKvStore;
+import com.luisurdaneta.kv.adapters.storage.RocksDbStore;
+import com.luisurdaneta.kv.core.cluster.Membership;
+import com.luisurdaneta.kv.core.cluster.PeerLatencies;
+import com.luisurdaneta.kv.core.cluster.PhiAccrualFailureDetector;
 import com.luisurdaneta.kv.core.ports.PeerClient;
-import com.luisurdaneta.kv.core.ring.ConsistentHashRing;
+import com.luisurdaneta.kv.core.service.AntiEntropyService;
+import com.luisurdaneta.kv.core.service.CoordinatorExecutor;
+import com.luisurdaneta.kv.core.service.LargeValueService;
 import com.luisurdaneta.kv.core.service.ReadCoordinatorService;
 import com.luisurdaneta.kv.core.service.ReplicaKvService;
 import com.luisurdaneta.kv.core.service.WriteCoordinatorService;
 
-import java.util.List;
-
 public record NodeContext(
         NodeConfig config,
-        List<Node> peers,
-        ConsistentHashRing ring,
+        Membership membership,
+        PhiAccrualFailureDetector failureDetector,
+        PeerLatencies peerLatencies,
+        PeerBreakers peerBreakers, // null when disabled
         ReplicaKvService replicaKvService,
         WriteCoordinatorService writeCoordinatorService,
         ReadCoordinatorService readCoordinatorService,
-        PeerClient peerClient
+        LargeValueService largeValueService,
+        PeerClient peerClient,
+        CoordinatorExecutor coordinatorExecutor,
+        AntiEntropyService antiEntropyService,
+        RocksDbStore store,
+        CachingKvStore readCache, // null when disabled
+        Admission admission // null when disabled
 ) {}
@@ -1,8 +1,12 @@
 package com.luisurdaneta.kv.http;
 
 import com.luisurdaneta.kv.http.handler.*;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 
+import java.util.List;
+
 public final class Routes {
     private Routes() {}
 
@@ -10,7 +14,33 @@ public final class Routes {
         server.createContext("/healthz", new HealthHandler());
         server.createContext("/whoami", new WhoamiHandler(ctx));
         server.createContext("/debug/replicas", new DebugReplicasHandler(ctx));
-        server.createContext("/kv", new KvHandler(ctx));
-        server.createContext("/internal/replica/kv", new ReplicaKvHandler(ctx));
+        server.createContext("/debug/storage", new DebugStorageHandler(ctx));
+        server.createContext("/debug/peers", new DebugPeersHandler(ctx));
+        server.createContext("/debug/admission", new DebugAdmissionHandler(ctx));
+        HttpContext kv = server.createContext("/kv", new KvHandler(ctx));
+        HttpContext mget = server.createContext("/kv/_mget", new KvMultiHandler(ctx));
+        HttpContext mput = server.createContext("/kv/_mput", new KvMultiHandler(ctx));
+        HttpContext replicaKv = server.createContext("/internal/replica/kv", new ReplicaKvHandler(ctx));
+        HttpContext replicaBatch = server.createContext("/internal/replica/batch", new ReplicaBatchHandler(ctx));
+        HttpContext replicaStream = server.createContext("/internal/replica/stream", new ReplicaStreamHandler(ctx));
+        server.createContext("/internal/membership", new MembershipHandler(ctx));
+        server.createContext("/internal/heartbeat", new HeartbeatHandler(ctx));
+        server.createContext("/internal/antientropy", new AntiEntropyHandler(ctx));
+
+        // the worker cap, like load shedding, leaves the control plane alone
+        Filter cap = HttpWorkers.cap(HttpWorkers.Mode.parse(ctx.config().httpWorkers()), ctx.config().httpMaxWorkers());
+        if (cap != null) {
+            for (HttpContext c : List.of(kv, mget, mput, replicaKv, replicaBatch, replicaStream)) c.getFilters().add(cap);
+        }
+
+        // load shedding covers client and replica data requests only: heartbeats, gossip and
+        // anti-entropy must get through an overloaded node, or it looks dead instead of busy
+        Admission admission = ctx.admission();
+        if (admission != null) {
+            for (HttpContext c : List.of(kv, mget, mput)) c.getFilters().add(admission.clientFilter());
+            replicaKv.getFilters().add(admission.replicaFilter(true));
+            replicaBatch.getFilters().add(admission.replicaFilter(true));
+            replicaStream.getFilters().add(admission.replicaFilter(false));
+        }
     }
 }
\ No newline at end of file
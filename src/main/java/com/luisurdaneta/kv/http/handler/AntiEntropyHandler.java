@@ -0,0 +1,84 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisurdaneta.kv.adapters.peer.ReplicaBatchCodec;
+import com.luisurdaneta.kv.adapters.peer.ReplicaCodec;
+import com.luisurdaneta.kv.core.model.MerkleTree;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.ring.ConsistentHashRing.TokenRange;
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpBodies;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+
+/**
+ * POST /internal/antientropy/trees   {"depth":d,"ranges":[[start,end],...]}
+ *                                    -> the trees' hashes as big-endian longs, back to back
+ * POST /internal/antientropy/leaves  {"depth":d,"ranges":[{"start":s,"end":e,"leaves":[...]},...]}
+ *                                    -> the records in those leaves of all the ranges (one scan),
+ *                                       as a replica batch frame of puts
+ */
+public final class AntiEntropyHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public AntiEntropyHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        try {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+                return;
+            }
+            String path = ex.getRequestURI().getPath();
+            JsonNode req = HttpJson.MAPPER.readTree(ex.getRequestBody().readAllBytes());
+
+            if (path.endsWith("/trees")) {
+                trees(ex, req);
+            } else if (path.endsWith("/leaves")) {
+                leaves(ex, req);
+            } else {
+                HttpJson.json(ex, 404, Map.of("error", "not found"));
+            }
+        } catch (Exception e) {
+            HttpJson.json(ex, 400, Map.of("error", "bad_request", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void trees(HttpExchange ex, JsonNode req) throws Exception {
+        int depth = req.path("depth").asInt();
+        List<TokenRange> ranges = new ArrayList<>();
+        for (JsonNode r : req.path("ranges")) ranges.add(new TokenRange(r.get(0).asLong(), r.get(1).asLong()));
+
+        List<MerkleTree> trees = ctx.antiEntropyService().buildTrees(ranges, depth);
+
+        ByteBuffer bb = ByteBuffer.allocate(trees.size() * ((1 << (depth + 1)) - 1) * Long.BYTES);
+        LongBuffer lb = bb.asLongBuffer();
+        for (MerkleTree t : trees) lb.put(t.hashes());
+        HttpBodies.send(ex, 200, ReplicaCodec.BINARY, bb);
+    }
+
+    private void leaves(HttpExchange ex, JsonNode req) throws Exception {
+        int depth = req.path("depth").asInt();
+        Map<TokenRange, List<Integer>> leaves = new LinkedHashMap<>();
+        for (JsonNode r : req.path("ranges")) {
+            List<Integer> ls = new ArrayList<>();
+            for (JsonNode l : r.path("leaves")) ls.add(l.asInt());
+            leaves.put(new TokenRange(r.path("start").asLong(), r.path("end").asLong()), ls);
+        }
+
+        List<ReplicaBatchCodec.Op> ops = new ArrayList<>();
+        for (Map<String, VersionedValue> entries : ctx.antiEntropyService().leafEntries(leaves, depth).values()) {
+            entries.forEach((k, vv) -> ops.add(ReplicaBatchCodec.Op.put(k, vv)));
+        }
+        HttpBodies.send(ex, 200, ReplicaCodec.BINARY, ReplicaBatchCodec.encodeRequest(ops));
+    }
+}
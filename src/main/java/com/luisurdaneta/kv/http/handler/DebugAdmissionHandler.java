@@ -0,0 +1,32 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** GET /debug/admission  the client and replica concurrency limits: current limit, in flight, shed counts. */
+public final class DebugAdmissionHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public DebugAdmissionHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        if (!"GET".equals(ex.getRequestMethod())) {
+            HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+            return;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("nodeId", ctx.config().nodeId());
+        out.put("enabled", ctx.admission() != null);
+        if (ctx.admission() != null) out.putAll(ctx.admission().stats());
+        HttpJson.json(ex, 200, out);
+    }
+}
@@ -0,0 +1,35 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** GET /debug/peers  this node's view of its peers: connection pool use, circuit breakers, failure detector phi, read latencies. */
+public final class DebugPeersHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public DebugPeersHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        if (!"GET".equals(ex.getRequestMethod())) {
+            HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+            return;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("nodeId", ctx.config().nodeId());
+        out.put("pools", PeerHttpClient.poolStats());
+        out.put("breakers", ctx.peerBreakers() == null ? Map.of() : ctx.peerBreakers().view());
+        out.put("phi", ctx.failureDetector().view());
+        out.put("latencies", ctx.peerLatencies().view());
+        HttpJson.json(ex, 200, out);
+    }
+}
@@ -29,11 +29,15 @@ public final class DebugReplicasHandler implements HttpHandler {
         }
 
         String k = URLDecoder.decode(q.substring(4), StandardCharsets.UTF_8);
-        List<Node> reps = ctx.ring().replicasForKey(k, 3);
+        List<Node> reps = ctx.membership().current().replicasForKey(k, 3);
+        Map<String, Map<String, Object>> latencies = ctx.peerLatencies().view();
 
         HttpJson.json(ex, 200, Map.of(
                 "key", k,
-                "replicas", reps.stream().map(n -> Map.of("id", n.id(), "url", n.baseUrl())).toList()
+                "replicas", reps.stream().map(n -> Map.of("id", n.id(), "url", n.baseUrl())).toList(),
+                // read order before the local node is moved to the front; latencies as seen from this node
+                "fastestFirst", ctx.peerLatencies().fastestFirst(reps).stream().map(Node::id).toList(),
+                "latencies", latencies
         ));
     }
 }
@@ -0,0 +1,33 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** GET /debug/storage  local store stats: engine profile, block cache, read cache, write latency per durability mode. */
+public final class DebugStorageHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public DebugStorageHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        if (!"GET".equals(ex.getRequestMethod())) {
+            HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+            return;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("nodeId", ctx.config().nodeId());
+        out.put("engine", ctx.store().engineStats());
+        out.put("readCache", ctx.readCache() == null ? Map.of("enabled", false) : ctx.readCache().stats());
+        out.put("writes", ctx.store().writeStats());
+        HttpJson.json(ex, 200, out);
+    }
+}
@@ -0,0 +1,36 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * POST /internal/heartbeat  liveness ping from a peer (body: its node id)
+ * GET  /internal/heartbeat  this node's phi per peer, for debugging
+ */
+public final class HeartbeatHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public HeartbeatHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        switch (ex.getRequestMethod()) {
+            case "POST" -> {
+                ex.getRequestBody().readAllBytes();
+                HttpJson.json(ex, 200, Map.of("nodeId", ctx.config().nodeId()));
+            }
+            case "GET" -> HttpJson.json(ex, 200, Map.of(
+                    "nodeId", ctx.config().nodeId(),
+                    "phi", ctx.failureDetector().view()
+            ));
+            default -> HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+        }
+    }
+}
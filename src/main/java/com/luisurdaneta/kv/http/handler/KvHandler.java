@@ -1,15 +1,35 @@
 package com.luisurdaneta.kv.http.handler;
 
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
+import com.luisurdaneta.kv.core.model.ChunkManifest;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.service.WriteCoordinatorService.WriteResult;
+import com.luisurdaneta.kv.http.Admission;
 import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpBodies;
 import com.luisurdaneta.kv.util.HttpJson;
 import com.luisurdaneta.kv.util.PathParams;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Map;
 
+/**
+ * GET/PUT/DELETE /kv/{key}
+ *
+ * Writes take an optional X-KV-Durability header (no-wal, async, group-sync, sync),
+ * applied on every replica; without it each replica uses its configured default.
+ * Values of {@code Payload.OFF_HEAP_MIN_BYTES} or more are kept off-heap both ways; from
+ * STREAM_THRESHOLD_BYTES on they are never held whole, but streamed in chunks through
+ * {@code LargeValueService} (bodies without a Content-Length switch once they get there).
+ * A body held whole may be at most MAX_BODY_BYTES, whatever the threshold; larger gets 413.
+ */
 public final class KvHandler implements HttpHandler {
     private final NodeContext ctx;
 
@@ -26,11 +46,18 @@ public final class KvHandler implements HttpHandler {
                 return;
             }
 
+            Durability durability;
+            try {
+                durability = Durability.parse(ex.getRequestHeaders().getFirst(PeerHttpClient.DURABILITY_HEADER));
+            } catch (IllegalArgumentException e) {
+                HttpJson.json(ex, 400, Map.of("error", "bad " + PeerHttpClient.DURABILITY_HEADER,
+                        "allowed", "no-wal, async, group-sync, sync"));
+                return;
+            }
+
             switch (ex.getRequestMethod()) {
                 case "PUT" -> {
-                    byte[] body = ex.getRequestBody().readAllBytes();
-
-                    var r = ctx.writeCoordinatorService().put(key, body);
+                    WriteResult r = write(ex, key, durability);
 
                     if (!r.ok()) {
                         HttpJson.json(ex, 503, Map.of(
@@ -53,7 +80,7 @@ public final class KvHandler implements HttpHandler {
                 }
 
                 case "DELETE" -> {
-                    var r = ctx.writeCoordinatorService().delete(key);
+                    var r = ctx.writeCoordinatorService().delete(key, durability);
 
                     if (!r.ok()) {
                         HttpJson.json(ex, 503, Map.of(
@@ -93,19 +120,54 @@ public final class KvHandler implements HttpHandler {
                         return;
                     }
 
-                    ex.getResponseHeaders().set("Content-Type", "application/octet-stream");
                     ex.getResponseHeaders().set("X-KV-Ts", Long.toString(rr.ts()));
                     ex.getResponseHeaders().set("X-KV-NodeId", rr.nodeId());
-                    ex.sendResponseHeaders(200, rr.payload().length);
-                    try (OutputStream os = ex.getResponseBody()) {
-                        os.write(rr.payload());
+                    if (!rr.chunked()) {
+                        HttpBodies.send(ex, 200, "application/octet-stream", rr.payload().buffer());
+                        return;
+                    }
+
+                    // the quorum agreed on the record; only now are the winner's bytes fetched
+                    ex.setAttribute(Admission.UNTIMED, Boolean.TRUE);
+                    InputStream in = ctx.largeValueService().open(key, rr);
+                    if (in == null) {
+                        HttpJson.json(ex, 503, Map.of("ok", false, "error", "value_unavailable"));
+                        return;
+                    }
+                    long length = ChunkManifest.fromPayload(rr.payload()).length();
+                    ex.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                    ex.sendResponseHeaders(200, length == 0 ? -1 : length);
+                    try (in; OutputStream os = ex.getResponseBody()) {
+                        in.transferTo(os);
                     }
                 }
 
                 default -> HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
             }
+        } catch (HttpBodies.TooLargeException e) {
+            HttpJson.json(ex, 413, Map.of("error", "body_too_large", "maxBytes", e.maxBytes()));
         } catch (Exception e) {
             HttpJson.json(ex, 500, Map.of("error", "internal", "message", e.getMessage()));
         }
     }
+
+    private WriteResult write(HttpExchange ex, String key, Durability durability) throws Exception {
+        long threshold = ctx.config().streamThresholdBytes();
+        long length = HttpBodies.contentLength(ex);
+        if (threshold <= 0 || (length >= 0 && length < threshold)) {
+            return ctx.writeCoordinatorService().put(key, HttpBodies.read(ex, ctx.config().maxBodyBytes()), durability);
+        }
+        if (length >= 0) {
+            ex.setAttribute(Admission.UNTIMED, Boolean.TRUE);
+            return ctx.largeValueService().put(key, ex.getRequestBody(), length, durability);
+        }
+
+        // no Content-Length: buffer up to the threshold, stream if the body goes on past it
+        InputStream body = ex.getRequestBody();
+        byte[] head = body.readNBytes((int) Math.min(threshold, Integer.MAX_VALUE - 8));
+        if (head.length < threshold) return ctx.writeCoordinatorService().put(key, Payload.of(head), durability);
+        ex.setAttribute(Admission.UNTIMED, Boolean.TRUE);
+        return ctx.largeValueService().put(key, new SequenceInputStream(new ByteArrayInputStream(head), body), -1,
+                durability);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.ChunkManifest;
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.service.ReadCoordinatorService;
+import com.luisurdaneta.kv.core.service.WriteCoordinatorService;
+import com.luisurdaneta.kv.http.Admission;
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpBodies;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Multi-key client API.
+ *
+ * POST /kv/_mget  {"keys": ["a", "b"]}
+ * POST /kv/_mput  {"items": [{"key": "a", "valueB64": "..."}]}   (optional X-KV-Durability header)
+ *
+ * Quorum is evaluated per key, so the response is always 200 and carries one
+ * result per (distinct) key; "ok" at the top level is true only if every key succeeded.
+ * Values stored in chunks come back as {"streamed": true, "length": n} without their bytes.
+ */
+public final class KvMultiHandler implements HttpHandler {
+    private static final Base64.Encoder ENC = Base64.getEncoder();
+    private static final Base64.Decoder DEC = Base64.getDecoder();
+
+    private final NodeContext ctx;
+
+    public KvMultiHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        try {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+                return;
+            }
+
+            JsonNode body = HttpJson.MAPPER.readTree(HttpBodies.read(ex, ctx.config().maxBodyBytes()).toArray());
+
+            switch (ex.getRequestURI().getPath()) {
+                case "/kv/_mget" -> mget(ex, body);
+                case "/kv/_mput" -> mput(ex, body);
+                default -> HttpJson.json(ex, 404, Map.of("error", "not found"));
+            }
+        } catch (HttpBodies.TooLargeException e) {
+            HttpJson.json(ex, 413, Map.of("error", "body_too_large", "maxBytes", e.maxBytes()));
+        } catch (IllegalArgumentException e) {
+            HttpJson.json(ex, 400, Map.of("error", "bad_request", "message", String.valueOf(e.getMessage())));
+        } catch (Exception e) {
+            HttpJson.json(ex, 500, Map.of("error", "internal", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void mget(HttpExchange ex, JsonNode body) throws Exception {
+        JsonNode keysNode = body == null ? null : body.get("keys");
+        if (keysNode == null || !keysNode.isArray() || keysNode.isEmpty()) {
+            throw new IllegalArgumentException("expected {\"keys\": [...]}");
+        }
+
+        List<String> keys = new ArrayList<>(keysNode.size());
+        for (JsonNode k : keysNode) keys.add(requireKey(k.asText()));
+
+        List<ReadCoordinatorService.ReadResult> results = ctx.readCoordinatorService().getMany(keys);
+
+        boolean allOk = true;
+        List<Map<String, Object>> out = new ArrayList<>(results.size());
+        for (ReadCoordinatorService.ReadResult rr : results) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("key", rr.key());
+            m.put("ok", rr.ok());
+            m.put("acks", rr.acks());
+            m.put("required", rr.required());
+            if (!rr.ok()) {
+                m.put("error", "read_quorum_failed");
+                allOk = false;
+            } else {
+                m.put("found", rr.found());
+                if (rr.found()) {
+                    m.put("ts", rr.ts());
+                    m.put("nodeId", rr.nodeId());
+                    if (rr.chunked()) {
+                        // streamed values don't fit in a JSON batch: fetch them with GET /kv/{key}
+                        m.put("streamed", true);
+                        m.put("length", ChunkManifest.fromPayload(rr.payload()).length());
+                    } else {
+                        m.put("valueB64", ENC.encodeToString(rr.payload().toArray()));
+                    }
+                }
+            }
+            out.add(m);
+        }
+
+        // a key that missed its quorum waited out the replica timeout: not this node's latency
+        if (!allOk) ex.setAttribute(Admission.UNTIMED, Boolean.TRUE);
+        HttpJson.json(ex, 200, Map.of("ok", allOk, "results", out));
+    }
+
+    private void mput(HttpExchange ex, JsonNode body) throws Exception {
+        Durability durability;
+        try {
+            durability = Durability.parse(ex.getRequestHeaders().getFirst(PeerHttpClient.DURABILITY_HEADER));
+        } catch (IllegalArgumentException e) {
+            HttpJson.json(ex, 400, Map.of("error", "bad " + PeerHttpClient.DURABILITY_HEADER,
+                    "allowed", "no-wal, async, group-sync, sync"));
+            return;
+        }
+
+        JsonNode itemsNode = body == null ? null : body.get("items");
+        if (itemsNode == null || !itemsNode.isArray() || itemsNode.isEmpty()) {
+            throw new IllegalArgumentException("expected {\"items\": [{\"key\": ..., \"valueB64\": ...}]}");
+        }
+
+        // last occurrence of a key wins, like issuing the PUTs in order
+        Map<String, Payload> items = new LinkedHashMap<>();
+        for (JsonNode item : itemsNode) {
+            String key = requireKey(item.path("key").asText(null));
+            items.put(key, Payload.of(DEC.decode(item.path("valueB64").asText(""))));
+        }
+
+        List<WriteCoordinatorService.WriteResult> results = ctx.writeCoordinatorService().putMany(items, durability);
+
+        boolean allOk = true;
+        List<Map<String, Object>> out = new ArrayList<>(results.size());
+        for (WriteCoordinatorService.WriteResult r : results) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("key", r.key());
+            m.put("ok", r.ok());
+            m.put("acks", r.acks());
+            m.put("required", r.required());
+            if (r.ok()) {
+                m.put("ts", r.ts());
+                m.put("nodeId", r.originNodeId());
+            } else {
+                m.put("error", "write_quorum_failed");
+                allOk = false;
+            }
+            out.add(m);
+        }
+
+        if (!allOk) ex.setAttribute(Admission.UNTIMED, Boolean.TRUE);
+        HttpJson.json(ex, 200, Map.of("ok", allOk, "results", out));
+    }
+
+    private static String requireKey(String key) {
+        if (key == null || key.isBlank()) throw new IllegalArgumentException("missing key");
+        return key;
+    }
+}
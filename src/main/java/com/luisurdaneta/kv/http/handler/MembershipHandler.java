@@ -0,0 +1,56 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.adapters.peer.MembershipDto;
+import com.luisurdaneta.kv.core.cluster.Membership;
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * GET  /internal/membership        current view
+ * POST /internal/membership        merge the posted view, reply with ours (gossip)
+ * POST /internal/membership/leave  take this node out of the ring
+ */
+public final class MembershipHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public MembershipHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        try {
+            Membership membership = ctx.membership();
+            String path = ex.getRequestURI().getPath();
+
+            switch (ex.getRequestMethod()) {
+                case "GET" -> HttpJson.json(ex, 200, view(membership));
+
+                case "POST" -> {
+                    if (path.equals("/internal/membership/leave")) {
+                        boolean changed = membership.leave(ctx.config().nodeId());
+                        HttpJson.json(ex, 200, Map.of("ok", true, "changed", changed));
+                        return;
+                    }
+
+                    MembershipDto remote = HttpJson.MAPPER.readValue(ex.getRequestBody().readAllBytes(), MembershipDto.class);
+                    membership.merge(remote.toMembers());
+                    HttpJson.json(ex, 200, view(membership));
+                }
+
+                default -> HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+            }
+        } catch (Exception e) {
+            HttpJson.json(ex, 400, Map.of("error", "bad_request", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private static MembershipDto view(Membership membership) {
+        return MembershipDto.of(membership.snapshot().version(), membership.view());
+    }
+}
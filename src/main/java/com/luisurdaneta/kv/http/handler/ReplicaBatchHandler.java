@@ -0,0 +1,111 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
+import com.luisurdaneta.kv.adapters.peer.ReplicaBatchCodec;
+import com.luisurdaneta.kv.adapters.peer.ReplicaCodec;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.service.ReplicaKvService;
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpBodies;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+public final class ReplicaBatchHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public ReplicaBatchHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        try {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+                return;
+            }
+            if (!ReplicaCodec.isBinary(ex.getRequestHeaders().getFirst("Content-Type"))) {
+                HttpJson.json(ex, 415, Map.of("error", "batch requires " + ReplicaCodec.BINARY));
+                return;
+            }
+
+            List<ReplicaBatchCodec.Op> ops = ReplicaBatchCodec.decodeRequest(HttpBodies.read(ex, ctx.config().maxBodyBytes()).buffer());
+            List<ReplicaBatchCodec.OpResult> results = new ArrayList<>(Collections.nCopies(ops.size(), null));
+
+            Durability durability = Durability.parse(ex.getRequestHeaders().getFirst(PeerHttpClient.DURABILITY_HEADER));
+            applyPuts(ops, durability, results);
+
+            // one failing get must not fail its neighbours
+            for (int i = 0; i < ops.size(); i++) {
+                if (results.get(i) != null) continue;
+                try {
+                    results.set(i, get(ops.get(i)));
+                } catch (Exception e) {
+                    results.set(i, ReplicaBatchCodec.OpResult.failed());
+                }
+            }
+
+            HttpBodies.send(ex, 200, ReplicaCodec.BINARY, ReplicaBatchCodec.encodeResponse(results));
+        } catch (HttpBodies.TooLargeException e) {
+            HttpJson.json(ex, 413, Map.of("error", "body_too_large", "maxBytes", e.maxBytes()));
+        } catch (Exception e) {
+            HttpJson.json(ex, 400, Map.of("error", "bad_request", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * All puts of the batch go to the store as one group commit. If that commit fails,
+     * each put is retried on its own, so one bad op fails alone rather than taking its
+     * neighbours with it.
+     */
+    private void applyPuts(List<ReplicaBatchCodec.Op> ops, Durability durability,
+                           List<ReplicaBatchCodec.OpResult> results) {
+        List<Integer> at = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<VersionedValue> values = new ArrayList<>();
+        for (int i = 0; i < ops.size(); i++) {
+            if (!ops.get(i).isPut()) continue;
+            at.add(i);
+            keys.add(ops.get(i).key());
+            values.add(ops.get(i).putOrNull());
+        }
+        if (at.isEmpty()) return;
+
+        try {
+            List<ReplicaKvService.PutReplicaResult> rs = ctx.replicaKvService().putReplicas(keys, values, durability);
+            for (int j = 0; j < at.size(); j++) {
+                results.set(at.get(j), new ReplicaBatchCodec.OpResult(true, rs.get(j).applied(), null));
+            }
+        } catch (Exception e) {
+            for (int i : at) results.set(i, put(ops.get(i), durability));
+        }
+    }
+
+    private ReplicaBatchCodec.OpResult put(ReplicaBatchCodec.Op op, Durability durability) {
+        try {
+            boolean applied = ctx.replicaKvService().putReplica(op.key(), op.putOrNull(), durability).applied();
+            return new ReplicaBatchCodec.OpResult(true, applied, null);
+        } catch (Exception e) {
+            return ReplicaBatchCodec.OpResult.failed();
+        }
+    }
+
+    private ReplicaBatchCodec.OpResult get(ReplicaBatchCodec.Op op) throws Exception {
+        if (op.digest()) {
+            return new ReplicaBatchCodec.OpResult(true, false, null, ctx.replicaKvService().getDigest(op.key()));
+        }
+        if (ctx.replicaKvService().getReplica(op.key()) instanceof ReplicaKvService.GetReplicaResult.Found f) {
+            return new ReplicaBatchCodec.OpResult(true, false, f.record());
+        }
+        return new ReplicaBatchCodec.OpResult(true, false, null);
+    }
+}
@@ -1,16 +1,21 @@
 package com.luisurdaneta.kv.http.handler;
 
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
 import com.luisurdaneta.kv.adapters.peer.ReplicaCodec;
 import com.luisurdaneta.kv.adapters.peer.ReplicaRecordDto;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.RecordDigest;
 import com.luisurdaneta.kv.core.model.VersionedValue;
 import com.luisurdaneta.kv.core.service.ReplicaKvService;
 import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpBodies;
 import com.luisurdaneta.kv.util.HttpJson;
 import com.luisurdaneta.kv.util.PathParams;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 
@@ -30,15 +35,37 @@ public final class ReplicaKvHandler implements HttpHandler {
                 return;
             }
 
+            // binary frames when the peer asks for them, JSON otherwise (curl-friendly)
+            boolean binaryIn = ReplicaCodec.isBinary(ex.getRequestHeaders().getFirst("Content-Type"));
+            boolean binaryOut = ReplicaCodec.isBinary(ex.getRequestHeaders().getFirst("Accept"));
+
             switch (ex.getRequestMethod()) {
                 case "PUT" -> {
-                    byte[] body = ex.getRequestBody().readAllBytes();
+                    // 415 for a frame version this node can't read: the sender falls back to JSON
+                    VersionedValue incoming;
+                    if (binaryIn) {
+                        ByteBuffer frame = HttpBodies.read(ex, ctx.config().maxBodyBytes()).buffer();
+                        if (!frame.hasRemaining() || frame.get(frame.position()) != ReplicaCodec.WIRE_V1) {
+                            HttpJson.json(ex, 415, Map.of("error", "unsupported replica frame version"));
+                            return;
+                        }
+                        incoming = ReplicaCodec.decodeRecord(frame);
+                    } else {
+                        ReplicaRecordDto dto = HttpJson.MAPPER.readValue(ex.getRequestBody(), ReplicaRecordDto.class);
+                        incoming = ReplicaCodec.fromDto(dto);
+                    }
 
-                    ReplicaRecordDto dto = HttpJson.MAPPER.readValue(body, ReplicaRecordDto.class);
-                    VersionedValue incoming = ReplicaCodec.fromDto(dto);
+                    String hintFor = ex.getRequestHeaders().getFirst(PeerHttpClient.HINT_FOR_HEADER);
+                    Durability durability = Durability.parse(ex.getRequestHeaders().getFirst(PeerHttpClient.DURABILITY_HEADER));
+                    ReplicaKvService.PutReplicaResult r = hintFor == null
+                            ? ctx.replicaKvService().putReplica(key, incoming, durability)
+                            : ctx.replicaKvService().storeHint(hintFor, key, incoming);
 
-                    ReplicaKvService.PutReplicaResult r =
-                            ctx.replicaKvService().putReplica(key, incoming);
+                    if (binaryOut) {
+                        HttpBodies.send(ex, 200, ReplicaCodec.BINARY,
+                                ByteBuffer.wrap(ReplicaCodec.encodePutAck(true, r.applied())));
+                        return;
+                    }
 
                     HttpJson.json(ex, 200, Map.of(
                             "ok", true,
@@ -51,6 +78,11 @@ public final class ReplicaKvHandler implements HttpHandler {
                 }
 
                 case "GET" -> {
+                    if ("true".equals(PathParams.queryParam(ex, "digest"))) {
+                        digest(ex, key, binaryOut);
+                        return;
+                    }
+
                     ReplicaKvService.GetReplicaResult r =
                             ctx.replicaKvService().getReplica(key);
 
@@ -62,6 +94,11 @@ public final class ReplicaKvHandler implements HttpHandler {
                     ReplicaKvService.GetReplicaResult.Found f =
                             (ReplicaKvService.GetReplicaResult.Found) r;
 
+                    if (binaryOut) {
+                        HttpBodies.send(ex, 200, ReplicaCodec.BINARY, ReplicaCodec.encodeRecord(f.record()));
+                        return;
+                    }
+
                     HttpJson.json(ex, 200, Map.of(
                             "found", true,
                             "key", key,
@@ -71,8 +108,34 @@ public final class ReplicaKvHandler implements HttpHandler {
 
                 default -> HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
             }
+        } catch (HttpBodies.TooLargeException e) {
+            HttpJson.json(ex, 413, Map.of("error", "body_too_large", "maxBytes", e.maxBytes()));
         } catch (Exception e) {
             HttpJson.json(ex, 400, Map.of("error", "bad_request", "message", e.getMessage()));
         }
     }
+
+    /** GET ?digest=true: the record's version instead of the record. */
+    private void digest(HttpExchange ex, String key, boolean binaryOut) throws Exception {
+        RecordDigest d = ctx.replicaKvService().getDigest(key);
+        if (d == null) {
+            HttpJson.json(ex, 404, Map.of("found", false));
+            return;
+        }
+
+        if (binaryOut) {
+            HttpBodies.send(ex, 200, ReplicaCodec.BINARY, ReplicaCodec.encodeDigest(d));
+            return;
+        }
+
+        HttpJson.json(ex, 200, Map.of(
+                "found", true,
+                "key", key,
+                "digest", Map.of(
+                        "ts", d.ts(),
+                        "nodeId", d.nodeId(),
+                        "tombstone", d.tombstone(),
+                        "chunked", d.chunked())
+        ));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.luisurdaneta.kv.http.handler;
+
+import com.luisurdaneta.kv.adapters.peer.PeerHttpClient;
+import com.luisurdaneta.kv.adapters.peer.ReplicaCodec;
+import com.luisurdaneta.kv.core.model.ChunkManifest;
+import com.luisurdaneta.kv.core.model.Durability;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import com.luisurdaneta.kv.core.service.ReplicaKvService;
+import com.luisurdaneta.kv.http.NodeContext;
+import com.luisurdaneta.kv.util.HttpBodies;
+import com.luisurdaneta.kv.util.HttpJson;
+import com.luisurdaneta.kv.util.PathParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * PUT/GET /internal/replica/stream/{key}: chunked values between replicas, body as raw bytes.
+ *
+ * PUT carries the version in X-KV-Ts / X-KV-NodeId and the value as a fixed-length body;
+ * the ack is a put ack like /internal/replica/kv's. GET ?ts=&nodeId= streams that version
+ * if it is the one stored here, 404 otherwise.
+ */
+public final class ReplicaStreamHandler implements HttpHandler {
+    private final NodeContext ctx;
+
+    public ReplicaStreamHandler(NodeContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        try {
+            String key = PathParams.pathParamAfterPrefix(ex, "/internal/replica/stream/");
+            if (key == null || key.isBlank()) {
+                HttpJson.json(ex, 400, Map.of("error", "missing key"));
+                return;
+            }
+
+            switch (ex.getRequestMethod()) {
+                case "PUT" -> {
+                    long length = HttpBodies.contentLength(ex);
+                    if (length < 0) {
+                        HttpJson.json(ex, 411, Map.of("error", "Content-Length required"));
+                        return;
+                    }
+                    long ts;
+                    String nodeId = ex.getRequestHeaders().getFirst(PeerHttpClient.VERSION_NODE_HEADER);
+                    Durability durability;
+                    try {
+                        ts = Long.parseLong(ex.getRequestHeaders().getFirst(PeerHttpClient.VERSION_TS_HEADER));
+                        durability = Durability.parse(ex.getRequestHeaders().getFirst(PeerHttpClient.DURABILITY_HEADER));
+                    } catch (IllegalArgumentException e) {
+                        HttpJson.json(ex, 400, Map.of("error", "bad_request", "message", String.valueOf(e.getMessage())));
+                        return;
+                    }
+                    if (nodeId == null || nodeId.isBlank()) {
+                        HttpJson.json(ex, 400, Map.of("error", "missing " + PeerHttpClient.VERSION_NODE_HEADER));
+                        return;
+                    }
+
+                    ReplicaKvService.PutReplicaResult r;
+                    try (InputStream body = HttpBodies.stream(ex)) {
+                        r = ctx.largeValueService().accept(key, ts, nodeId, body, length, durability);
+                    } catch (EOFException e) {
+                        // the sender's fault; storage and other failures are ours: 500 below
+                        HttpJson.json(ex, 400, Map.of("error", "short_body", "message", String.valueOf(e.getMessage())));
+                        return;
+                    }
+
+                    if (ReplicaCodec.isBinary(ex.getRequestHeaders().getFirst("Accept"))) {
+                        HttpBodies.send(ex, 200, ReplicaCodec.BINARY,
+                                ByteBuffer.wrap(ReplicaCodec.encodePutAck(true, r.applied())));
+                        return;
+                    }
+
+                    HttpJson.json(ex, 200, Map.of(
+                            "ok", true,
+                            "key", key,
+                            "applied", r.applied(),
+                            "ts", r.ts(),
+                            "nodeId", r.nodeId()
+                    ));
+                }
+
+                case "GET" -> {
+                    String ts = PathParams.queryParam(ex, "ts");
+                    String nodeId = PathParams.queryParam(ex, "nodeId");
+                    if (ts == null || nodeId == null) {
+                        HttpJson.json(ex, 400, Map.of("error", "use ?ts=...&nodeId=..."));
+                        return;
+                    }
+
+                    long version;
+                    try {
+                        version = Long.parseLong(ts);
+                    } catch (NumberFormatException e) {
+                        HttpJson.json(ex, 400, Map.of("error", "use ?ts=...&nodeId=..."));
+                        return;
+                    }
+
+                    VersionedValue record = ctx.largeValueService().localVersion(key, version, nodeId);
+                    if (record == null) {
+                        HttpJson.json(ex, 404, Map.of("found", false));
+                        return;
+                    }
+
+                    long length = ChunkManifest.of(record).length();
+                    ex.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                    ex.sendResponseHeaders(200, length == 0 ? -1 : length);
+                    try (InputStream in = ctx.largeValueService().open(key, record);
+                         OutputStream os = ex.getResponseBody()) {
+                        in.transferTo(os);
+                    }
+                }
+
+                default -> HttpJson.json(ex, 405, Map.of("error", "method not allowed"));
+            }
+        } catch (Exception e) {
+            HttpJson.json(ex, 500, Map.of("error", "internal", "message", String.valueOf(e.getMessage())));
+        }
+    }
+}
@@ -27,7 +27,8 @@ public final class WhoamiHandler implements HttpHandler {
                 "replicas", c.replicas(),
                 "port", c.port(),
                 "dbPath", c.dbPath(),
-                "peers", ctx.peers()
+                "ringVersion", ctx.membership().snapshot().version(),
+                "peers", ctx.membership().snapshot().nodes()
         ));
     }
 }
@@ -0,0 +1,107 @@
+package com.luisurdaneta.kv.util;
+
+import com.luisurdaneta.kv.core.model.Payload;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/** Raw request/response bodies as buffers, so large values skip heap arrays. */
+public final class HttpBodies {
+    private HttpBodies() {}
+
+    /**
+     * The request body; with a Content-Length of {@link Payload#OFF_HEAP_MIN_BYTES} or more, read off-heap.
+     * Content-Length is the client's word: a body declared, or found, over {@code maxBytes} is
+     * refused with {@link TooLargeException} before anything is allocated for it.
+     */
+    public static Payload read(HttpExchange ex, long maxBytes) throws IOException {
+        long length = contentLength(ex);
+        if (length > maxBytes) throw new TooLargeException(maxBytes);
+        if (length >= 0) return Payload.read(ex.getRequestBody(), length);
+
+        byte[] b = ex.getRequestBody().readNBytes((int) Math.min(maxBytes + 1, Integer.MAX_VALUE - 8));
+        if (b.length > maxBytes) throw new TooLargeException(maxBytes);
+        return Payload.of(b);
+    }
+
+    /** A request body over the node's limit; answered with 413. */
+    public static final class TooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long maxBytes;
+
+        public TooLargeException(long maxBytes) {
+            super("request body over " + maxBytes + " bytes");
+            this.maxBytes = maxBytes;
+        }
+
+        public long maxBytes() {
+            return maxBytes;
+        }
+    }
+
+    /**
+     * The request body as a stream that fails reads with {@link EOFException}: the server
+     * reports a body cut short as a bare IOException, which can't be told from a storage failure.
+     */
+    public static InputStream stream(HttpExchange ex) {
+        return new FilterInputStream(ex.getRequestBody()) {
+            @Override
+            public int read() throws IOException {
+                try {
+                    return super.read();
+                } catch (IOException e) {
+                    throw cutShort(e);
+                }
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                try {
+                    return super.read(b, off, len);
+                } catch (IOException e) {
+                    throw cutShort(e);
+                }
+            }
+        };
+    }
+
+    private static EOFException cutShort(IOException e) {
+        if (e instanceof EOFException eof) return eof;
+        EOFException eof = new EOFException("request body cut short: " + e.getMessage());
+        eof.initCause(e);
+        return eof;
+    }
+
+    /** The request's Content-Length; -1 if it has none (chunked transfer encoding) or it is unreadable. */
+    public static long contentLength(HttpExchange ex) {
+        String len = ex.getRequestHeaders().getFirst("Content-Length");
+        try {
+            return len == null ? -1 : Long.parseLong(len.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Sends {@code parts} back to back as the body, with its exact Content-Length. */
+    public static void send(HttpExchange ex, int status, String contentType, ByteBuffer... parts) throws IOException {
+        long length = 0;
+        for (ByteBuffer p : parts) length += p.remaining();
+
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (OutputStream os = ex.getResponseBody()) {
+            WritableByteChannel ch = Channels.newChannel(os);
+            for (ByteBuffer p : parts) {
+                while (p.hasRemaining()) ch.write(p);
+            }
+        }
+    }
+}
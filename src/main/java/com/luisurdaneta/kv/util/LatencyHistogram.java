@@ -0,0 +1,60 @@
+package com.luisurdaneta.kv.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Percentiles are reported as the upper bound of their bucket, so within 2x.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS]; // i: [2^(i-1), 2^i) micros
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))].increment();
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public Map<String, Object> snapshot() {
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", n);
+        out.put("meanMicros", n == 0 ? 0 : totalMicros.sum() / n);
+        out.put("p50Micros", percentile(counts, n, 0.50));
+        out.put("p99Micros", percentile(counts, n, 0.99));
+        out.put("p999Micros", percentile(counts, n, 0.999));
+        out.put("maxMicros", maxMicros.get());
+        return out;
+    }
+
+    private static long percentile(long[] counts, long n, double q) {
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return 1L << i;
+        }
+        return 1L << (counts.length - 1);
+    }
+}
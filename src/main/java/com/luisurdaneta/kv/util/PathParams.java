@@ -15,4 +15,17 @@ public final class PathParams {
         if (raw.isEmpty()) return null;
         return URLDecoder.decode(raw, StandardCharsets.UTF_8);
     }
+
+    /** The first {@code name=value} of the query string, decoded; null if absent. */
+    public static String queryParam(HttpExchange ex, String name) {
+        String q = ex.getRequestURI().getRawQuery();
+        if (q == null) return null;
+        for (String pair : q.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
 }
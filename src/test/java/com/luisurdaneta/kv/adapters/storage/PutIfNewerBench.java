@@ -0,0 +1,134 @@
+package com.luisurdaneta.kv.adapters.storage;
+
+import com.luisurdaneta.kv.core.model.Payload;
+import com.luisurdaneta.kv.core.model.VersionedValue;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot-key fan-in on putIfNewer: many writers, few keys, every write a fresh version.
+ *
+ * Runs the striped-lock RocksDbStore.putIfNewer against the unlocked get/compare/put
+ * it replaced, on its own RocksDB. Versions come from one counter but reach the store
+ * out of order, so a correct putIfNewer refuses some of them; "applied" near 100% means
+ * older versions were written over newer ones. Also reports, per key, whether the
+ * version left in the store is the newest one written.
+ *
+ * Not a test; run by hand:
+ * {@code java -cp ... com.luisurdaneta.kv.adapters.storage.PutIfNewerBench [threads] [keys] [seconds] [valueBytes]}
+ */
+public final class PutIfNewerBench {
+    // one version source for all writers, so every write is a distinct, newer version
+    private static final AtomicLong CLOCK = new AtomicLong(System.currentTimeMillis() * 1_000);
+
+    interface Writer {
+        boolean putIfNewer(String key, VersionedValue candidate) throws Exception;
+        VersionedValue get(String key) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int valueBytes = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        System.out.printf("threads=%d keys=%d seconds=%d valueBytes=%d%n", threads, keys, seconds, valueBytes);
+
+        RocksDB.loadLibrary();
+        Path base = Files.createTempDirectory("putifnewer-bench");
+
+        try (RocksDbStore store = new RocksDbStore(base.resolve("striped").toString())) {
+            run("striped", new Writer() {
+                @Override
+                public boolean putIfNewer(String key, VersionedValue candidate) throws Exception {
+                    return store.putIfNewer(key, candidate);
+                }
+
+                @Override
+                public VersionedValue get(String key) throws Exception {
+                    return store.get(key);
+                }
+            }, threads, keys, seconds, valueBytes);
+        }
+
+        try (Options options = new Options().setCreateIfMissing(true);
+             RocksDB db = RocksDB.open(options, base.resolve("unlocked").toString())) {
+            run("unlocked", new Writer() {
+                @Override
+                public boolean putIfNewer(String key, VersionedValue candidate) throws RocksDBException {
+                    byte[] k = key.getBytes(StandardCharsets.UTF_8);
+                    byte[] raw = db.get(k);
+                    VersionedValue existing = raw == null ? null : VersionedValue.fromBytes(raw);
+                    if (!candidate.isNewerThan(existing)) return false;
+                    db.put(k, candidate.toBytes());
+                    return true;
+                }
+
+                @Override
+                public VersionedValue get(String key) throws RocksDBException {
+                    byte[] raw = db.get(key.getBytes(StandardCharsets.UTF_8));
+                    return raw == null ? null : VersionedValue.fromBytes(raw);
+                }
+            }, threads, keys, seconds, valueBytes);
+        }
+    }
+
+    private static void run(String name, Writer writer, int threads, int keys, int seconds, int valueBytes)
+            throws Exception {
+        // warm-up, then the measured run on fresh versions
+        measure(writer, threads, keys, 1, valueBytes);
+        Result r = measure(writer, threads, keys, seconds, valueBytes);
+        System.out.printf("%-9s %,12.0f ops/s  applied %5.1f%%  errors %d  keys left behind their newest write: %d of %d%n",
+                name, r.ops / (double) seconds, 100.0 * r.applied / Math.max(1, r.ops), r.errors, r.lost, keys);
+    }
+
+    private static Result measure(Writer writer, int threads, int keys, int seconds, int valueBytes)
+            throws Exception {
+        AtomicLongArray newest = new AtomicLongArray(keys);
+        LongAdder ops = new LongAdder();
+        LongAdder applied = new LongAdder();
+        LongAdder errors = new LongAdder();
+        byte[] value = new byte[valueBytes];
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String nodeId = "w" + t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    int i = rnd.nextInt(keys);
+                    long ts = CLOCK.incrementAndGet();
+                    newest.accumulateAndGet(i, ts, Math::max);
+                    try {
+                        if (writer.putIfNewer("hot-" + i, new VersionedValue(ts, nodeId, false, Payload.of(value)))) {
+                            applied.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    ops.increment();
+                }
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+
+        int lost = 0;
+        for (int i = 0; i < keys; i++) {
+            VersionedValue stored = writer.get("hot-" + i);
+            if (stored == null || stored.ts != newest.get(i)) lost++;
+        }
+        return new Result(ops.sum(), applied.sum(), errors.sum(), lost);
+    }
+
+    private record Result(long ops, long applied, long errors, int lost) {}
+}